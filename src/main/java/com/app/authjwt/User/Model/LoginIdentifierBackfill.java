@@ -0,0 +1,36 @@
+package com.app.authjwt.User.Model;
+
+import com.app.authjwt.User.Repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Migración de datos: rellena username_normalized/email_normalized en filas creadas antes de que existieran.
+ * Es idempotente; en una base ya migrada no actualiza nada.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LoginIdentifierBackfill implements CommandLineRunner {
+
+    private final UserRepository userRepository;
+
+    @Override
+    @Transactional
+    public void run(String... args) {
+        try {
+            int updated = userRepository.backfillNormalizedLoginIdentifiers();
+            if (updated > 0) {
+                log.info("Normalized login identifiers backfilled for {} users", updated);
+            }
+        } catch (DataIntegrityViolationException e) {
+            log.error("Cannot backfill normalized login identifiers: there are usernames or emails that differ only "
+                    + "by case or surrounding spaces. Resolve them manually and restart.", e);
+            throw e;
+        }
+    }
+}
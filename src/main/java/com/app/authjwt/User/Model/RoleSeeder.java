@@ -1,9 +1,14 @@
 package com.app.authjwt.User.Model;
 
 import com.app.authjwt.User.Repository.RoleRepository;
+import com.app.authjwt.User.service.RoleRegistry;
+import com.app.authjwt.changelog.ChangeLogService;
+import com.app.authjwt.changelog.ChangeType;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionTemplate;
+
 import java.util.Arrays;
 import java.util.List;
 
@@ -13,17 +18,33 @@ public class RoleSeeder implements CommandLineRunner {
     @Autowired
     private RoleRepository roleRepository;
 
+    @Autowired
+    private RoleRegistry roleRegistry;
+
+    @Autowired
+    private ChangeLogService changeLogService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
     @Override
     public void run(String... args) {
         List<String> roles = Arrays.asList("ROLE_USER", "ROLE_MODERATOR", "ROLE_ADMIN");
 
-        for (String roleName : roles) {
-            if (!roleRepository.existsByName(roleName)) {
-                Role role = new Role();
-                role.setName(roleName);
-                roleRepository.save(role);
-                System.out.println("Rol insertado: " + roleName);
+        transactionTemplate.executeWithoutResult(status -> {
+            for (String roleName : roles) {
+                if (!roleRepository.existsByName(roleName)) {
+                    Role role = new Role();
+                    role.setName(roleName);
+                    roleRepository.save(role);
+                    // Las demás réplicas recargan su RoleRegistry al leer el registro de cambios
+                    changeLogService.record(ChangeType.ROLE_UPDATED, roleName);
+                    System.out.println("Rol insertado: " + roleName);
+                }
             }
-        }
+        });
+
+        // El registro se cargó antes de que existieran los roles en el primer arranque
+        roleRegistry.refresh();
     }
 }
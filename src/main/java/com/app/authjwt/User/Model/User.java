@@ -7,10 +7,13 @@ import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.function.Function;
 
 @Getter
 @Setter
@@ -21,7 +24,9 @@ import java.util.stream.Collectors;
 @Table(name = "users",
         uniqueConstraints = {
                 @UniqueConstraint(columnNames = "username"),
-                @UniqueConstraint(columnNames = "email")
+                @UniqueConstraint(columnNames = "email"),
+                @UniqueConstraint(name = "uk_users_username_normalized", columnNames = "username_normalized"),
+                @UniqueConstraint(name = "uk_users_email_normalized", columnNames = "email_normalized")
         })
 public class User implements UserDetails {
     @Id
@@ -41,7 +46,18 @@ public class User implements UserDetails {
     @Size(max = 120)
     private String password;
 
-    @ManyToMany(fetch = FetchType.EAGER)
+    // Copias en minúsculas y sin espacios de username/email: el login busca por estas columnas
+    // para ser insensible a mayúsculas sin aplicar funciones SQL que anulen los índices únicos
+    @Setter(AccessLevel.NONE)
+    @Column(name = "username_normalized", length = 20)
+    private String usernameNormalized;
+
+    @Setter(AccessLevel.NONE)
+    @Column(name = "email_normalized", length = 50)
+    private String emailNormalized;
+
+    // Cada consulta decide si trae los roles (@EntityGraph en UserRepository); por defecto no se cargan
+    @ManyToMany(fetch = FetchType.LAZY)
     @JoinTable(name = "user_roles",
             joinColumns = @JoinColumn(name = "user_id"),
             inverseJoinColumns = @JoinColumn(name = "role_id"))
@@ -51,11 +67,53 @@ public class User implements UserDetails {
     @Builder.Default
     private boolean enabled = true;
 
+    // Lista inmutable derivada de roles; se calcula en la primera llamada y se descarta al cambiar los roles
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private List<GrantedAuthority> authorities;
+
+    public static String normalizeLoginIdentifier(String value) {
+        return value == null ? null : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    @PrePersist
+    @PreUpdate
+    void normalizeLoginIdentifiers() {
+        this.usernameNormalized = normalizeLoginIdentifier(username);
+        this.emailNormalized = normalizeLoginIdentifier(email);
+    }
+
+    public void setRoles(Set<Role> roles) {
+        this.roles = roles;
+        this.authorities = null;
+    }
+
+    /**
+     * Resuelve las authorities de los roles con la función dada (normalmente la del catálogo de roles,
+     * que devuelve instancias compartidas). Quien carga el usuario la invoca; la entidad no conoce el catálogo.
+     */
+    public void resolveAuthorities(Function<String, ? extends GrantedAuthority> authorityOf) {
+        this.authorities = authoritiesOf(authorityOf);
+    }
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return roles.stream()
-                .map(role -> new SimpleGrantedAuthority(role.getName()))
-                .collect(Collectors.toList());
+        List<GrantedAuthority> cached = authorities;
+        if (cached == null) {
+            // Usuario que no pasó por el catálogo (recién creado, tests): instancias propias
+            cached = authoritiesOf(SimpleGrantedAuthority::new);
+            authorities = cached;
+        }
+        return cached;
+    }
+
+    private List<GrantedAuthority> authoritiesOf(Function<String, ? extends GrantedAuthority> authorityOf) {
+        List<GrantedAuthority> resolved = new ArrayList<>(roles.size());
+        for (Role role : roles) {
+            resolved.add(authorityOf.apply(role.getName()));
+        }
+        return List.copyOf(resolved);
     }
 
     @Override
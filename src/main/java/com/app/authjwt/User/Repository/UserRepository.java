@@ -1,14 +1,52 @@
 package com.app.authjwt.User.Repository;
 
 import com.app.authjwt.User.Model.User;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 
 import java.util.Optional;
 
+/**
+ * Los roles son LAZY: las búsquedas que acaban en un {@code UserDetails} (login, filtro JWT, DTOs)
+ * los traen en la misma consulta con {@link EntityGraph}; el resto no los carga.
+ */
 public interface UserRepository extends JpaRepository<User,Long> {
+    @EntityGraph(attributePaths = "roles")
     Optional<User> findByUsername(String username);
 
+    @EntityGraph(attributePaths = "roles")
     Optional<User> findByEmail(String email);
 
     boolean existsByUsername(String username);
+
+    @EntityGraph(attributePaths = "roles")
+    Optional<User> findByUsernameNormalized(String usernameNormalized);
+
+    @EntityGraph(attributePaths = "roles")
+    Optional<User> findByEmailNormalized(String emailNormalized);
+
+    boolean existsByUsernameNormalized(String usernameNormalized);
+
+    boolean existsByEmailNormalized(String emailNormalized);
+
+    /**
+     * Resuelve un login por username o email con una sola búsqueda en el índice único correspondiente.
+     * Los usernames no pueden contener '@', así que su presencia identifica un email.
+     */
+    default Optional<User> findByLoginIdentifier(String identifier) {
+        String normalized = User.normalizeLoginIdentifier(identifier);
+        if (normalized == null || normalized.isEmpty()) {
+            return Optional.empty();
+        }
+        return normalized.indexOf('@') >= 0
+                ? findByEmailNormalized(normalized)
+                : findByUsernameNormalized(normalized);
+    }
+
+    @Modifying
+    @Query("UPDATE User u SET u.usernameNormalized = LOWER(TRIM(u.username)), u.emailNormalized = LOWER(TRIM(u.email)) "
+            + "WHERE u.usernameNormalized IS NULL OR u.emailNormalized IS NULL")
+    int backfillNormalizedLoginIdentifiers();
 }
@@ -0,0 +1,95 @@
+package com.app.authjwt.User.service;
+
+import com.app.authjwt.User.Model.Role;
+import com.app.authjwt.User.Repository.RoleRepository;
+import com.app.authjwt.changelog.CacheInvalidationListener;
+import com.app.authjwt.changelog.ChangeLogEntry;
+import com.app.authjwt.changelog.ChangeType;
+import com.app.authjwt.dto.RoleDto;
+import com.app.authjwt.security.RoleAuthorities;
+import com.app.authjwt.security.RoleCodec;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Catálogo de roles en memoria. Se carga al arrancar y se reemplaza entero en cada {@link #refresh()}:
+ * los lectores ven siempre una instantánea inmutable sin consultar la base de datos.
+ * Las instancias de {@link Role} y {@link RoleDto} que devuelve son compartidas y no deben modificarse.
+ * El id del rol sirve de código numérico en los tokens compactos: es el mismo en todas las réplicas.
+ * Cada instantánea lleva también la authority canónica de cada rol, compartida por todos los principales.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RoleRegistry implements CacheInvalidationListener, RoleCodec, RoleAuthorities {
+
+    private final RoleRepository roleRepository;
+
+    private volatile Snapshot snapshot = new Snapshot(Map.of(), Map.of(), Map.of(), Map.of());
+
+    @PostConstruct
+    public void refresh() {
+        Map<Long, Role> byId = new HashMap<>();
+        Map<String, Role> byName = new HashMap<>();
+        Map<String, RoleDto> dtos = new HashMap<>();
+        Map<String, GrantedAuthority> authorities = new HashMap<>();
+        for (Role role : roleRepository.findAll()) {
+            byId.put(role.getId(), role);
+            byName.put(role.getName(), role);
+            dtos.put(role.getName(), RoleDto.builder().name(role.getName()).build());
+            authorities.put(role.getName(), new SimpleGrantedAuthority(role.getName()));
+        }
+        snapshot = new Snapshot(Map.copyOf(byId), Map.copyOf(byName), Map.copyOf(dtos), Map.copyOf(authorities));
+        log.debug("Role registry loaded {} roles", byId.size());
+    }
+
+    @Override
+    public void onChange(ChangeLogEntry entry) {
+        if (entry.getChangeType() == ChangeType.ROLE_UPDATED) {
+            refresh();
+        }
+    }
+
+    public Optional<Role> findByName(String name) {
+        return Optional.ofNullable(snapshot.byName().get(name));
+    }
+
+    @Override
+    public Long codeOf(String roleName) {
+        Role role = snapshot.byName().get(roleName);
+        return role == null ? null : role.getId();
+    }
+
+    @Override
+    public String nameOf(long code) {
+        Role role = snapshot.byId().get(code);
+        return role == null ? null : role.getName();
+    }
+
+    @Override
+    public GrantedAuthority authorityOf(String roleName) {
+        GrantedAuthority authority = snapshot.authorities().get(roleName);
+        return authority != null ? authority : new SimpleGrantedAuthority(roleName);
+    }
+
+    public RoleDto toDto(Role role) {
+        RoleDto dto = snapshot.dtos().get(role.getName());
+        return dto != null ? dto : RoleDto.builder().name(role.getName()).build();
+    }
+
+    public int size() {
+        return snapshot.byId().size();
+    }
+
+    private record Snapshot(Map<Long, Role> byId, Map<String, Role> byName, Map<String, RoleDto> dtos,
+                            Map<String, GrantedAuthority> authorities) {
+    }
+}
@@ -1,8 +1,10 @@
 package com.app.authjwt.User.service;
 
+import com.app.authjwt.User.Model.Role;
 import com.app.authjwt.User.Model.User;
 import com.app.authjwt.User.Repository.UserRepository;
-import com.app.authjwt.dto.RoleDto;
+import com.app.authjwt.changelog.ChangeLogService;
+import com.app.authjwt.changelog.ChangeType;
 import com.app.authjwt.dto.UserDto;
 import com.app.authjwt.security.JwtUtils;
 import org.apache.catalina.mapper.Mapper;
@@ -12,7 +14,11 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -21,6 +27,10 @@ public class UserService {
     @Autowired
     private UserRepository userRepository;
     @Autowired
+    private RoleRegistry roleRegistry;
+    @Autowired
+    private ChangeLogService changeLogService;
+    @Autowired
     private JwtUtils jwtUtils;
     private Mapper mapper;
 
@@ -29,9 +39,7 @@ public class UserService {
                 .usermane(user.getUsername())
                 .Email(user.getEmail())
                 .roles(user.getRoles().stream()
-                        .map(role -> RoleDto.builder()
-                                .name(role.getName())
-                                .build())
+                        .map(roleRegistry::toDto)
                         .collect(Collectors.toList()))
                 .enabled(user.isEnabled())
                 .build();
@@ -66,4 +74,37 @@ public class UserService {
             return null;
         }
     }
+
+    /**
+     * Activa o desactiva la cuenta. El registro de cambios se escribe en la misma transacción para
+     * que todos los nodos invaliden sus cachés del usuario.
+     */
+    @Transactional
+    public UserDto setEnabled(String username, boolean enabled) {
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
+        if (user.isEnabled() != enabled) {
+            user.setEnabled(enabled);
+            userRepository.save(user);
+            changeLogService.record(enabled ? ChangeType.USER_ENABLED : ChangeType.USER_DISABLED, user.getUsername());
+        }
+        return convertToDto(user);
+    }
+
+    @Transactional
+    public UserDto updateRoles(String username, Collection<String> roleNames) {
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
+        Set<Role> roles = new HashSet<>();
+        for (String roleName : roleNames) {
+            roles.add(roleRegistry.findByName(roleName)
+                    .orElseThrow(() -> new IllegalArgumentException("Unknown role: " + roleName)));
+        }
+        if (!roles.equals(user.getRoles())) {
+            user.setRoles(roles);
+            userRepository.save(user);
+            changeLogService.record(ChangeType.ROLES_CHANGED, user.getUsername());
+        }
+        return convertToDto(user);
+    }
 }
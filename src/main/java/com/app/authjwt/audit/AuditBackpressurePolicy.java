@@ -0,0 +1,11 @@
+package com.app.authjwt.audit;
+
+/**
+ * Qué hacer cuando el buffer de auditoría está lleno.
+ */
+public enum AuditBackpressurePolicy {
+    /** Descarta el evento nuevo sin bloquear el hilo de la petición. */
+    DROP,
+    /** Espera hasta {@code auth.audit.blockTimeoutMs} a que haya espacio y luego descarta. */
+    BLOCK
+}
@@ -0,0 +1,14 @@
+package com.app.authjwt.audit;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class AuthAuditEvent {
+    private final AuthAuditEventType type;
+    private final String username;
+    private final String remoteAddress;
+    private final String detail;
+    private final long timestamp;
+}
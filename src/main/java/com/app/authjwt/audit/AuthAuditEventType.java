@@ -0,0 +1,8 @@
+package com.app.authjwt.audit;
+
+public enum AuthAuditEventType {
+    SIGNIN_SUCCESS,
+    SIGNIN_FAILURE,
+    SIGNUP,
+    TOKEN_REJECTED
+}
@@ -0,0 +1,42 @@
+package com.app.authjwt.audit;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Mapeo de la tabla de auditoría. Solo se usa para que Hibernate genere el esquema:
+ * las escrituras las hace {@link AuthAuditService} con inserts JDBC por lotes.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "auth_audit",
+        indexes = {
+                @Index(name = "idx_auth_audit_occurred_at", columnList = "occurred_at"),
+                @Index(name = "idx_auth_audit_username", columnList = "username")
+        })
+public class AuthAuditRecord {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(length = 32, nullable = false)
+    private String eventType;
+
+    @Column(length = 50)
+    private String username;
+
+    @Column(length = 64)
+    private String remoteAddress;
+
+    @Column(length = 255)
+    private String detail;
+
+    @Column(nullable = false)
+    private Instant occurredAt;
+}
@@ -0,0 +1,225 @@
+package com.app.authjwt.audit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Registro asíncrono de eventos de autenticación. El hilo de la petición solo publica el
+ * evento en un buffer circular; un hilo escritor lo vacía con inserts JDBC por lotes,
+ * forzando el flush por tamaño de lote o por tiempo.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AuthAuditService implements SmartLifecycle {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO auth_audit (event_type, username, remote_address, detail, occurred_at) VALUES (?, ?, ?, ?, ?)";
+    private static final int MAX_DETAIL_LENGTH = 255;
+    private static final long BLOCK_RETRY_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${auth.audit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${auth.audit.capacity:8192}")
+    private int capacity;
+
+    @Value("${auth.audit.batchSize:256}")
+    private int batchSize;
+
+    @Value("${auth.audit.flushIntervalMs:1000}")
+    private long flushIntervalMs;
+
+    @Value("${auth.audit.backpressure:DROP}")
+    private AuditBackpressurePolicy backpressure;
+
+    @Value("${auth.audit.blockTimeoutMs:5}")
+    private long blockTimeoutMs;
+
+    @Value("${auth.audit.shutdownTimeoutMs:5000}")
+    private long shutdownTimeoutMs;
+
+    private AuditRingBuffer<AuthAuditEvent> buffer;
+    private Counter droppedCounter;
+    private Counter writtenCounter;
+    private Counter failedCounter;
+    private Timer flushTimer;
+    private Timer lagTimer;
+
+    private volatile boolean running;
+    private Thread writer;
+    // El escritor duerme sin plazo mientras no tiene nada pendiente; record() lo despierta
+    private volatile boolean writerIdle;
+
+    @PostConstruct
+    void init() {
+        buffer = new AuditRingBuffer<>(capacity);
+        droppedCounter = Counter.builder("auth.audit.events.dropped")
+                .description("Eventos de auditoría descartados por buffer lleno")
+                .register(meterRegistry);
+        writtenCounter = Counter.builder("auth.audit.events.written")
+                .description("Eventos de auditoría persistidos")
+                .register(meterRegistry);
+        failedCounter = Counter.builder("auth.audit.events.failed")
+                .description("Eventos de auditoría perdidos por error de escritura")
+                .register(meterRegistry);
+        flushTimer = Timer.builder("auth.audit.flush")
+                .description("Duración de cada insert por lotes")
+                .register(meterRegistry);
+        lagTimer = Timer.builder("auth.audit.lag")
+                .description("Tiempo desde que se produce el evento más antiguo de un lote hasta que se persiste")
+                .register(meterRegistry);
+        Gauge.builder("auth.audit.queue.size", buffer, AuditRingBuffer::size)
+                .description("Eventos pendientes de escribir")
+                .register(meterRegistry);
+    }
+
+    public void record(AuthAuditEventType type, String username, String remoteAddress, String detail) {
+        if (!enabled) {
+            return;
+        }
+        AuthAuditEvent event = new AuthAuditEvent(type, username, remoteAddress,
+                truncate(detail), System.currentTimeMillis());
+        if (buffer.offer(event)) {
+            wakeWriter();
+            return;
+        }
+        if (backpressure == AuditBackpressurePolicy.BLOCK && offerWithTimeout(event)) {
+            return;
+        }
+        droppedCounter.increment();
+    }
+
+    private boolean offerWithTimeout(AuthAuditEvent event) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(blockTimeoutMs);
+        while (System.nanoTime() < deadline) {
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(BLOCK_RETRY_PARK_NANOS);
+            if (buffer.offer(event)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Solo hace falta despertar al escritor para el primer evento o cuando ya hay un lote completo
+    private void wakeWriter() {
+        if (writerIdle || buffer.size() >= batchSize) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    private static String truncate(String detail) {
+        if (detail == null || detail.length() <= MAX_DETAIL_LENGTH) {
+            return detail;
+        }
+        return detail.substring(0, MAX_DETAIL_LENGTH);
+    }
+
+    private void drainLoop() {
+        List<AuthAuditEvent> batch = new ArrayList<>(batchSize);
+        long flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        long batchStartedAt = System.nanoTime();
+
+        while (true) {
+            if (batch.isEmpty()) {
+                batchStartedAt = System.nanoTime();
+            }
+            buffer.drainTo(batch, batchSize - batch.size());
+
+            boolean stopping = !running;
+            boolean full = batch.size() >= batchSize;
+            boolean due = System.nanoTime() - batchStartedAt >= flushIntervalNanos;
+            if (full || (!batch.isEmpty() && (due || stopping))) {
+                flush(batch);
+                continue;
+            }
+            if (stopping && buffer.isEmpty()) {
+                return;
+            }
+            if (batch.isEmpty()) {
+                // Se publica el flag antes de revisar el buffer: un record() concurrente ve el flag o su evento se ve aquí
+                writerIdle = true;
+                if (running && buffer.isEmpty()) {
+                    LockSupport.park(this);
+                }
+                writerIdle = false;
+            } else {
+                LockSupport.parkNanos(this, flushIntervalNanos - (System.nanoTime() - batchStartedAt));
+            }
+        }
+    }
+
+    private void flush(List<AuthAuditEvent> batch) {
+        lagTimer.record(System.currentTimeMillis() - batch.get(0).getTimestamp(), TimeUnit.MILLISECONDS);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, event) -> {
+                ps.setString(1, event.getType().name());
+                ps.setString(2, event.getUsername());
+                ps.setString(3, event.getRemoteAddress());
+                ps.setString(4, event.getDetail());
+                ps.setTimestamp(5, new Timestamp(event.getTimestamp()));
+            });
+            writtenCounter.increment(batch.size());
+        } catch (DataAccessException e) {
+            failedCounter.increment(batch.size());
+            log.warn("Could not write {} audit events: {}", batch.size(), e.getMessage());
+        } finally {
+            sample.stop(flushTimer);
+            batch.clear();
+        }
+    }
+
+    @Override
+    public void start() {
+        if (!enabled || running) {
+            return;
+        }
+        running = true;
+        writer = new Thread(this::drainLoop, "auth-audit-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(shutdownTimeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writer.isAlive()) {
+            log.warn("Audit writer did not finish within {} ms, {} events pending", shutdownTimeoutMs, buffer.size());
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
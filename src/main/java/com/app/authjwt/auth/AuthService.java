@@ -2,80 +2,130 @@ package com.app.authjwt.auth;
 
 import com.app.authjwt.User.Model.Role;
 import com.app.authjwt.User.Model.User;
-import com.app.authjwt.User.Repository.RoleRepository;
 import com.app.authjwt.User.Repository.UserRepository;
+import com.app.authjwt.User.service.RoleRegistry;
+import com.app.authjwt.audit.AuthAuditEventType;
+import com.app.authjwt.audit.AuthAuditService;
+import com.app.authjwt.changelog.ChangeLogService;
+import com.app.authjwt.changelog.ChangeType;
 import com.app.authjwt.dto.payload.request.LoginRequest;
 import com.app.authjwt.dto.payload.request.RegisterRequest;
 import com.app.authjwt.dto.payload.response.AuthResponse;
 import com.app.authjwt.security.JwtUtils;
+import com.app.authjwt.security.TokenFingerprint;
+import com.app.authjwt.token.IssuedOpaqueToken;
+import com.app.authjwt.token.OpaqueTokenStore;
+import com.app.authjwt.token.TokenMode;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Collections;
+import java.util.Date;
 
 @Service
 @RequiredArgsConstructor
 public class AuthService {
 
     private final UserRepository userRepository;
-    private final RoleRepository roleRepository;
+    private final RoleRegistry roleRegistry;
     private final PasswordEncoder passwordEncoder;
     private final JwtUtils jwtService;
     private final AuthenticationManager authenticationManager;
+    private final AuthAuditService auditService;
+    private final OpaqueTokenStore opaqueTokenStore;
+    private final ChangeLogService changeLogService;
 
     
     @Value("${auth.app.jwtExpirationMs}")
     private long jwtExpirationMs;
 
-    public AuthResponse login(LoginRequest request) {
-        
-        Authentication authentication = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(request.getUsername(), request.getPassword())
-        );
+    @Value("${auth.app.tokenMode:JWT}")
+    private TokenMode tokenMode;
+
+    public AuthResponse login(LoginRequest request, String remoteAddress) {
+        Authentication authentication;
+        try {
+            authentication = authenticationManager.authenticate(
+                    new UsernamePasswordAuthenticationToken(request.getUsername(), request.getPassword())
+            );
+        } catch (AuthenticationException e) {
+            auditService.record(AuthAuditEventType.SIGNIN_FAILURE, request.getUsername(), remoteAddress, e.getClass().getSimpleName());
+            throw e;
+        }
 
         
         SecurityContextHolder.getContext().setAuthentication(authentication);
 
         
         User user = (User) authentication.getPrincipal();
+        auditService.record(AuthAuditEventType.SIGNIN_SUCCESS, user.getUsername(), remoteAddress, null);
 
-        
-        String token = jwtService.generateToken(user);
-
-        return AuthResponse.builder()
-                .token(token)
-                .build();
+        return issueToken(user);
     }
 
-    public AuthResponse register(RegisterRequest request) {
-        if (userRepository.existsByUsername(request.getUsername())) {
-            throw new RuntimeException("Error: Username is already taken!");
+    public AuthResponse register(RegisterRequest request, String remoteAddress) {
+        if (request.getUsername() == null || request.getUsername().indexOf('@') >= 0) {
+            throw new IllegalArgumentException("Error: Username cannot contain '@'!");
+        }
+        if (userRepository.existsByUsernameNormalized(User.normalizeLoginIdentifier(request.getUsername()))) {
+            throw new IllegalArgumentException("Error: Username is already taken!");
         }
 
-        Role userRole = roleRepository.findByName("ROLE_USER")
+        Role userRole = roleRegistry.findByName("ROLE_USER")
                 .orElseThrow(() -> new RuntimeException("Error: Role is not found."));
 
         User user = User.builder()
-                .username(request.getUsername())
-                .email(request.getEmail())
+                .username(request.getUsername().trim())
+                .email(request.getEmail() == null ? null : request.getEmail().trim())
                 .password(passwordEncoder.encode(request.getPassword()))
                 .roles(Collections.singleton(userRole))
                 .enabled(true)
                 .build();
 
         userRepository.save(user);
+        auditService.record(AuthAuditEventType.SIGNUP, user.getUsername(), remoteAddress, null);
+
+        return issueToken(user);
+    }
+
+    /**
+     * Revoca un token opaco de forma inmediata. Los JWT son autocontenidos y no pueden revocarse aquí.
+     * La revocación se publica en el feed de cambios por su huella.
+     */
+    @Transactional
+    public boolean revokeToken(String token) {
+        if (!OpaqueTokenStore.isOpaqueToken(token)) {
+            return false;
+        }
+        boolean revoked = opaqueTokenStore.revoke(token);
+        if (revoked) {
+            changeLogService.record(ChangeType.TOKEN_REVOKED, TokenFingerprint.of(token));
+        }
+        return revoked;
+    }
+
+    private AuthResponse issueToken(User user) {
+        if (tokenMode == TokenMode.OPAQUE) {
+            IssuedOpaqueToken issued = opaqueTokenStore.issue(user);
+            return AuthResponse.builder()
+                    .token(issued.getToken())
+                    .issuedAt(new Date(issued.getEntry().getIssuedAt()))
+                    .expiration(new Date(issued.getEntry().getExpiresAt()))
+                    .build();
+        }
 
-        
         String token = jwtService.generateToken(user);
 
         return AuthResponse.builder()
                 .token(token)
                 .build();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,96 @@
+package com.app.authjwt.auth;
+
+import com.app.authjwt.dto.payload.request.TokenExchangeRequest;
+import com.app.authjwt.dto.payload.response.AuthResponse;
+import com.app.authjwt.security.JwtUtils;
+import com.app.authjwt.token.OpaqueTokenEntry;
+import com.app.authjwt.token.OpaqueTokenStore;
+import io.jsonwebtoken.Claims;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Intercambio de tokens: deriva un token más restringido (menos roles, audiencia propia, vida corta)
+ * a partir de los claims ya verificados del token presentado. No consulta {@code UserRepository}
+ * ni el {@code PasswordEncoder}, así que puede atender tasas altas.
+ */
+@Service
+@RequiredArgsConstructor
+public class TokenExchangeService {
+
+    private final JwtUtils jwtUtils;
+    private final OpaqueTokenStore opaqueTokenStore;
+
+    @Value("${auth.exchange.maxExpirationMs:300000}")
+    private long maxExpirationMs;
+
+    public AuthResponse exchange(String subjectToken, TokenExchangeRequest request) {
+        if (request.getAudience() == null || request.getAudience().isBlank()) {
+            throw new IllegalArgumentException("Error: Audience is required!");
+        }
+
+        String subject;
+        Set<String> grantedRoles;
+        long subjectExpiresAt;
+        if (OpaqueTokenStore.isOpaqueToken(subjectToken)) {
+            OpaqueTokenEntry entry = opaqueTokenStore.resolve(subjectToken);
+            if (entry == null) {
+                throw new BadCredentialsException("Error: Token is invalid or expired!");
+            }
+            subject = entry.getPrincipal().getUsername();
+            grantedRoles = authorityNames(entry.getPrincipal().getAuthorities());
+            subjectExpiresAt = entry.getExpiresAt();
+        } else {
+            Claims claims = jwtUtils.extractAllClaims(subjectToken);
+            // Un token ya intercambiado solo puede reducirse dentro de su audiencia, nunca llevarse a otra
+            Set<String> subjectAudience = claims.getAudience();
+            if (subjectAudience != null && !subjectAudience.isEmpty()
+                    && !(subjectAudience.size() == 1 && subjectAudience.contains(request.getAudience()))) {
+                throw new AccessDeniedException("Error: Subject token is bound to another audience!");
+            }
+            subject = claims.getSubject();
+            grantedRoles = jwtUtils.extractRoles(claims);
+            subjectExpiresAt = claims.getExpiration() == null ? Long.MAX_VALUE : claims.getExpiration().getTime();
+        }
+
+        List<String> roles = request.getAuthorities() == null
+                ? new ArrayList<>(grantedRoles)
+                : List.copyOf(new LinkedHashSet<>(request.getAuthorities()));
+        if (!grantedRoles.containsAll(roles)) {
+            throw new AccessDeniedException("Error: Requested authorities exceed those of the original token!");
+        }
+
+        long now = System.currentTimeMillis();
+        long lifetimeMs = maxExpirationMs;
+        if (request.getExpiresInSeconds() != null && request.getExpiresInSeconds() > 0) {
+            lifetimeMs = Math.min(lifetimeMs, request.getExpiresInSeconds() * 1000);
+        }
+        long expiresAt = Math.min(now + lifetimeMs, subjectExpiresAt);
+
+        String token = jwtUtils.generateExchangedToken(subject, request.getAudience(), roles, now, expiresAt);
+        return AuthResponse.builder()
+                .token(token)
+                .issuedAt(new Date(now / 1000 * 1000))
+                .expiration(new Date(expiresAt / 1000 * 1000))
+                .build();
+    }
+
+    private static Set<String> authorityNames(Collection<? extends GrantedAuthority> authorities) {
+        Set<String> names = new LinkedHashSet<>(authorities.size() * 2);
+        for (GrantedAuthority authority : authorities) {
+            names.add(authority.getAuthority());
+        }
+        return names;
+    }
+}
@@ -0,0 +1,10 @@
+package com.app.authjwt.changelog;
+
+/**
+ * Caché local que debe invalidarse cuando otro nodo (o este) registra un cambio.
+ * Las implementaciones se llaman desde el hilo del {@link ChangeLogPoller} y deben ser rápidas.
+ */
+public interface CacheInvalidationListener {
+
+    void onChange(ChangeLogEntry entry);
+}
@@ -0,0 +1,356 @@
+package com.app.authjwt.changelog;
+
+import com.app.authjwt.util.JsonStrings;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Difunde por SSE las entradas del registro de cambios a los servicios que validan tokens por su
+ * cuenta. El id de cada evento es el id de la entrada: al reconectar, el cliente envía
+ * {@code Last-Event-ID} y recibe lo que se perdió, desde memoria o desde la base de datos. Si ya
+ * no es posible (entradas purgadas o demasiadas), recibe un evento {@code reset} y debe vaciar
+ * sus cachés.
+ * <p>
+ * Un suscriptor inactivo no ocupa hilo: solo su conexión asíncrona y una cola vacía. Los envíos
+ * los hace un pool pequeño con como mucho una tarea en curso por suscriptor, así que un cliente
+ * lento no retrasa al resto; si acumula {@code auth.feed.maxPending} eventos se le desconecta.
+ * <p>
+ * Una entrada confirmada tarde (hueco del sondeo) se emite con un id menor que el último enviado:
+ * un cliente que reconecte justo en ese intervalo puede no recibirla.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ChangeFeedService implements CacheInvalidationListener {
+
+    static final String RESET_EVENT = "reset";
+
+    private static final long UNKNOWN = -1;
+    private static final int REPLAY_PAGE_SIZE = 500;
+    private static final Map<ChangeType, String> EVENT_NAMES = new EnumMap<>(ChangeType.class);
+    // Comentario SSE: mantiene viva la conexión en proxies y detecta clientes desconectados
+    private static final Set<DataWithMediaType> HEARTBEAT = SseEmitter.event().comment("").build();
+
+    static {
+        for (ChangeType type : ChangeType.values()) {
+            EVENT_NAMES.put(type, type.name().toLowerCase(Locale.ROOT).replace('_', '-'));
+        }
+    }
+
+    private final ChangeLogRepository changeLogRepository;
+    // El sondeo recibe a este servicio como listener: se resuelve en diferido para no crear un ciclo
+    private final ObjectProvider<ChangeLogPoller> changeLogPoller;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${auth.feed.timeoutMs:1800000}")
+    private long timeoutMs;
+
+    @Value("${auth.feed.maxSubscribers:10000}")
+    private int maxSubscribers;
+
+    @Value("${auth.feed.replayBufferSize:10000}")
+    private int replayBufferSize;
+
+    @Value("${auth.feed.maxReplay:10000}")
+    private int maxReplay;
+
+    @Value("${auth.feed.maxPending:1000}")
+    private int maxPending;
+
+    @Value("${auth.feed.senderThreads:2}")
+    private int senderThreads;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    // Últimos eventos recibidos del sondeo; protegido por el monitor de este objeto
+    private final ArrayDeque<FeedEvent> recent = new ArrayDeque<>();
+    private long lastSeq = UNKNOWN;
+    private Executor sender;
+    private Counter dropped;
+
+    @PostConstruct
+    void init() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        sender = Executors.newFixedThreadPool(senderThreads, task -> {
+            Thread thread = new Thread(task, "change-feed-sender-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        dropped = Counter.builder("auth.feed.subscribers.dropped")
+                .description("Suscriptores desconectados por acumular demasiados eventos sin enviar")
+                .register(meterRegistry);
+        Gauge.builder("auth.feed.subscribers", subscribers, Set::size)
+                .description("Suscriptores conectados al feed de cambios en este nodo")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param lastEventId último id recibido por el cliente, o {@code null} para empezar desde ahora
+     * @throws IllegalStateException si se alcanzó {@code auth.feed.maxSubscribers}
+     */
+    public SseEmitter subscribe(Long lastEventId) {
+        if (subscribers.size() >= maxSubscribers) {
+            throw new IllegalStateException("Change feed subscriber limit reached");
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        register(emitter, lastEventId);
+        return emitter;
+    }
+
+    void register(SseEmitter emitter, Long lastEventId) {
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+
+        // Lo anterior al buffer en memoria se lee de la base de datos fuera del lock
+        long floor = replayFloor();
+        boolean reset = false;
+        List<FeedEvent> missed = List.of();
+        if (lastEventId != null) {
+            if (floor == UNKNOWN) {
+                reset = true;
+            } else if (lastEventId < floor) {
+                missed = loadMissed(lastEventId, floor);
+                reset = missed == null;
+            }
+        }
+
+        synchronized (this) {
+            // Mientras se leía la base de datos el buffer pudo descartar eventos aún no enviados
+            if (lastEventId != null && !reset && replayFloor() > Math.max(floor, lastEventId)) {
+                reset = true;
+            }
+            if (reset) {
+                subscriber.enqueue(resetFrame(head()));
+            } else if (lastEventId != null) {
+                for (FeedEvent event : missed) {
+                    subscriber.enqueue(event.frame());
+                }
+                for (FeedEvent event : recent) {
+                    if (event.seq() > lastEventId) {
+                        subscriber.enqueue(event.frame());
+                    }
+                }
+            } else {
+                // Fuerza el envío de las cabeceras aunque no haya cambios
+                subscriber.enqueue(HEARTBEAT);
+            }
+            subscribers.add(subscriber);
+        }
+        subscriber.schedule();
+    }
+
+    @Override
+    public void onChange(ChangeLogEntry entry) {
+        FeedEvent event = toEvent(entry);
+        synchronized (this) {
+            recent.addLast(event);
+            if (recent.size() > replayBufferSize) {
+                recent.removeFirst();
+            }
+            lastSeq = Math.max(lastSeq, event.seq());
+            for (Subscriber subscriber : subscribers) {
+                subscriber.offer(event.frame());
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${auth.feed.heartbeatMs:15000}")
+    public void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(HEARTBEAT);
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        for (Subscriber subscriber : subscribers) {
+            remove(subscriber);
+            subscriber.emitter.complete();
+        }
+        if (sender instanceof ExecutorService executor) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Último id que este nodo puede servir sin ir a la base de datos: los posteriores están en
+     * {@link #recent} o llegarán en directo.
+     */
+    private synchronized long replayFloor() {
+        if (!recent.isEmpty()) {
+            return recent.peekFirst().seq() - 1;
+        }
+        ChangeLogPoller poller = changeLogPoller.getIfAvailable();
+        return poller == null ? UNKNOWN : poller.getHighWaterMark();
+    }
+
+    private synchronized long head() {
+        ChangeLogPoller poller = changeLogPoller.getIfAvailable();
+        return Math.max(lastSeq, poller == null ? UNKNOWN : poller.getHighWaterMark());
+    }
+
+    /**
+     * Entradas en {@code (lastEventId, floor]}, o {@code null} si no pueden reconstruirse. Un hueco
+     * al principio del registro puede ser una purga o un rollback; ante la duda se pide reset.
+     */
+    private List<FeedEvent> loadMissed(long lastEventId, long floor) {
+        long oldest = changeLogRepository.findMinId();
+        if (oldest == 0 || oldest > lastEventId + 1) {
+            return null;
+        }
+        List<FeedEvent> missed = new ArrayList<>();
+        long cursor = lastEventId;
+        List<ChangeLogEntry> page;
+        do {
+            page = changeLogRepository.findByIdGreaterThanOrderByIdAsc(cursor, PageRequest.of(0, REPLAY_PAGE_SIZE));
+            for (ChangeLogEntry entry : page) {
+                if (entry.getId() > floor) {
+                    return missed;
+                }
+                if (missed.size() >= maxReplay) {
+                    return null;
+                }
+                missed.add(toEvent(entry));
+                cursor = entry.getId();
+            }
+        } while (page.size() == REPLAY_PAGE_SIZE);
+        return missed;
+    }
+
+    private void remove(Subscriber subscriber) {
+        subscriber.closed = true;
+        subscriber.pending.clear();
+        subscribers.remove(subscriber);
+    }
+
+    static FeedEvent toEvent(ChangeLogEntry entry) {
+        StringBuilder json = new StringBuilder(64);
+        json.append("{\"key\":");
+        JsonStrings.append(json, entry.getEntityKey());
+        json.append(",\"at\":").append(entry.getCreatedAt().toEpochMilli()).append('}');
+        return new FeedEvent(entry.getId(), SseEmitter.event()
+                .id(Long.toString(entry.getId()))
+                .name(EVENT_NAMES.get(entry.getChangeType()))
+                .data(json.toString())
+                .build());
+    }
+
+    private static Set<DataWithMediaType> resetFrame(long head) {
+        SseEmitter.SseEventBuilder event = SseEmitter.event();
+        if (head != UNKNOWN) {
+            event.id(Long.toString(head));
+        }
+        return event.name(RESET_EVENT).data("{}").build();
+    }
+
+    /**
+     * Evento ya serializado: se construye una vez y se comparte entre todos los suscriptores.
+     */
+    record FeedEvent(long seq, Set<DataWithMediaType> frame) {
+    }
+
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final Queue<Set<DataWithMediaType>> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pendingCount = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean closed;
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        /**
+         * Evento en directo: nunca bloquea a quien difunde. Un cliente que no consume se desconecta
+         * y reanuda con {@code Last-Event-ID}.
+         */
+        void offer(Set<DataWithMediaType> frame) {
+            if (closed) {
+                return;
+            }
+            if (pendingCount.get() >= maxPending) {
+                dropped.increment();
+                log.debug("Dropping change feed subscriber with {} pending events", pendingCount.get());
+                remove(this);
+                execute(emitter::complete);
+                return;
+            }
+            enqueue(frame);
+            schedule();
+        }
+
+        // La reanudación no cuenta contra maxPending: su tamaño ya lo acota maxReplay
+        void enqueue(Set<DataWithMediaType> frame) {
+            pendingCount.incrementAndGet();
+            pending.add(frame);
+        }
+
+        void schedule() {
+            if (!closed && !pending.isEmpty() && draining.compareAndSet(false, true)) {
+                execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                Set<DataWithMediaType> frame;
+                while (!closed && (frame = pending.poll()) != null) {
+                    pendingCount.decrementAndGet();
+                    emitter.send(frame);
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Cliente desconectado o emisor ya completado
+                remove(this);
+            } finally {
+                draining.set(false);
+            }
+            // Un evento encolado mientras se liberaba el flag no debe quedarse sin enviar
+            schedule();
+        }
+
+        private void execute(Runnable task) {
+            try {
+                sender.execute(task);
+            } catch (RejectedExecutionException e) {
+                draining.set(false);
+                remove(this);
+            }
+        }
+    }
+}
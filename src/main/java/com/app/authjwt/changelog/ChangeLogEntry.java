@@ -0,0 +1,35 @@
+package com.app.authjwt.changelog;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Fila del registro de cambios. Se escribe en la misma transacción que el cambio de usuario o rol;
+ * cada nodo la lee por id creciente para invalidar sus cachés locales.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "auth_change_log",
+        indexes = @Index(name = "idx_auth_change_log_created_at", columnList = "created_at"))
+public class ChangeLogEntry {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 32, nullable = false)
+    private ChangeType changeType;
+
+    // username para cambios de usuario, nombre del rol para cambios de rol
+    @Column(length = 50, nullable = false)
+    private String entityKey;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+}
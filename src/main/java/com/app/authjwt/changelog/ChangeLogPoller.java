@@ -0,0 +1,152 @@
+package com.app.authjwt.changelog;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lee el registro de cambios por id creciente desde una marca de agua y avisa a las cachés locales
+ * de las claves afectadas. Arranca desde el id máximo existente: al iniciar las cachés están vacías.
+ * <p>
+ * Los ids IDENTITY se asignan al insertar, no al confirmar, así que una transacción lenta puede
+ * confirmar un id menor que la marca ya leída. Los huecos se recuerdan y se reconsultan hasta
+ * {@code auth.changelog.gapTimeoutMs}; pasado ese tiempo se asume que fueron rollbacks.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ChangeLogPoller {
+
+    private static final long UNINITIALIZED = -1;
+
+    private final ChangeLogRepository changeLogRepository;
+    private final List<CacheInvalidationListener> listeners;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${auth.changelog.batchSize:500}")
+    private int batchSize;
+
+    @Value("${auth.changelog.gapTimeoutMs:30000}")
+    private long gapTimeoutMs;
+
+    @Value("${auth.changelog.maxTrackedGaps:1000}")
+    private int maxTrackedGaps;
+
+    @Value("${auth.changelog.retentionMs:86400000}")
+    private long retentionMs;
+
+    private final AtomicLong highWaterMark = new AtomicLong(UNINITIALIZED);
+    // id del hueco -> instante en que se detectó; solo lo toca el hilo del scheduler
+    private final Map<Long, Long> pendingGaps = new LinkedHashMap<>();
+    private Timer lagTimer;
+    private Counter appliedCounter;
+
+    @PostConstruct
+    void init() {
+        lagTimer = Timer.builder("auth.changelog.invalidation.lag")
+                .description("Tiempo desde que se registra un cambio hasta que este nodo invalida sus cachés")
+                .register(meterRegistry);
+        appliedCounter = Counter.builder("auth.changelog.entries.applied")
+                .description("Entradas del registro de cambios aplicadas en este nodo")
+                .register(meterRegistry);
+        Gauge.builder("auth.changelog.high.water.mark", highWaterMark, AtomicLong::get)
+                .description("Último id del registro de cambios leído por este nodo")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${auth.changelog.pollIntervalMs:1000}")
+    public void poll() {
+        try {
+            if (highWaterMark.get() == UNINITIALIZED) {
+                highWaterMark.set(changeLogRepository.findMaxId());
+                return;
+            }
+            recheckGaps();
+            List<ChangeLogEntry> batch;
+            do {
+                batch = changeLogRepository.findByIdGreaterThanOrderByIdAsc(highWaterMark.get(), PageRequest.of(0, batchSize));
+                for (ChangeLogEntry entry : batch) {
+                    trackGaps(highWaterMark.get(), entry.getId());
+                    apply(entry);
+                    highWaterMark.set(entry.getId());
+                }
+            } while (batch.size() == batchSize);
+        } catch (DataAccessException e) {
+            log.warn("Could not poll change log from id {}: {}", highWaterMark.get(), e.getMessage());
+        }
+    }
+
+    public long getHighWaterMark() {
+        return highWaterMark.get();
+    }
+
+    private void trackGaps(long previous, long current) {
+        long now = System.currentTimeMillis();
+        for (long id = previous + 1; id < current && pendingGaps.size() < maxTrackedGaps; id++) {
+            pendingGaps.putIfAbsent(id, now);
+        }
+    }
+
+    private void recheckGaps() {
+        if (pendingGaps.isEmpty()) {
+            return;
+        }
+        for (ChangeLogEntry entry : changeLogRepository.findAllById(pendingGaps.keySet())) {
+            pendingGaps.remove(entry.getId());
+            apply(entry);
+        }
+        long cutoff = System.currentTimeMillis() - gapTimeoutMs;
+        Iterator<Long> detectedAt = pendingGaps.values().iterator();
+        while (detectedAt.hasNext()) {
+            if (detectedAt.next() < cutoff) {
+                detectedAt.remove();
+            }
+        }
+    }
+
+    private void apply(ChangeLogEntry entry) {
+        for (CacheInvalidationListener listener : listeners) {
+            try {
+                listener.onChange(entry);
+            } catch (RuntimeException e) {
+                log.error("Cache invalidation listener {} failed for change {}", listener.getClass().getSimpleName(), entry.getId(), e);
+            }
+        }
+        appliedCounter.increment();
+        // createdAt lo fija el nodo que escribió: el desfase de relojes entre nodos se suma al lag
+        long lagMs = System.currentTimeMillis() - entry.getCreatedAt().toEpochMilli();
+        lagTimer.record(Math.max(0, lagMs), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * La retención debe superar con holgura {@code gapTimeoutMs} y el mayor intervalo de sondeo esperable.
+     */
+    @Scheduled(fixedDelayString = "${auth.changelog.pruneIntervalMs:3600000}")
+    public void prune() {
+        try {
+            int deleted = changeLogRepository.deleteOlderThan(Instant.now().minusMillis(retentionMs));
+            if (deleted > 0) {
+                log.debug("Pruned {} change log entries", deleted);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Could not prune change log: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.app.authjwt.changelog;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface ChangeLogRepository extends JpaRepository<ChangeLogEntry, Long> {
+
+    List<ChangeLogEntry> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    @Query("SELECT COALESCE(MAX(e.id), 0) FROM ChangeLogEntry e")
+    long findMaxId();
+
+    @Query("SELECT COALESCE(MIN(e.id), 0) FROM ChangeLogEntry e")
+    long findMinId();
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ChangeLogEntry e WHERE e.createdAt < :cutoff")
+    int deleteOlderThan(Instant cutoff);
+}
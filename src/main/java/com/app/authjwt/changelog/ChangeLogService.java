@@ -0,0 +1,27 @@
+package com.app.authjwt.changelog;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+@Service
+@RequiredArgsConstructor
+public class ChangeLogService {
+
+    private final ChangeLogRepository changeLogRepository;
+
+    /**
+     * Exige una transacción activa: la entrada solo es visible si el cambio que describe se confirma.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(ChangeType changeType, String entityKey) {
+        changeLogRepository.save(ChangeLogEntry.builder()
+                .changeType(changeType)
+                .entityKey(entityKey)
+                .createdAt(Instant.now())
+                .build());
+    }
+}
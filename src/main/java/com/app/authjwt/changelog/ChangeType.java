@@ -0,0 +1,10 @@
+package com.app.authjwt.changelog;
+
+public enum ChangeType {
+    USER_ENABLED,
+    USER_DISABLED,
+    ROLES_CHANGED,
+    ROLE_UPDATED,
+    // entityKey es la huella del token (TokenFingerprint), nunca el token
+    TOKEN_REVOKED
+}
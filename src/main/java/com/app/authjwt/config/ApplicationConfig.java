@@ -1,7 +1,10 @@
 package com.app.authjwt.config;
 
+import com.app.authjwt.User.Model.User;
 import com.app.authjwt.User.Repository.UserRepository;
+import com.app.authjwt.User.service.RoleRegistry;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -12,16 +15,35 @@ import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.TimeUnit;
 
 @Configuration
 @RequiredArgsConstructor
 public class ApplicationConfig {
     private final UserRepository userRepository;
+    private final RoleRegistry roleRegistry;
+    private final PlatformTransactionManager transactionManager;
+
+    // Límite de la consulta del usuario (login y filtro JWT). Sin él, el hilo que ejecuta una búsqueda
+    // compartida y todos los que esperan dependerían del timeout del driver JDBC
+    @Value("${auth.lookup.queryTimeoutMs:2000}")
+    private long queryTimeoutMs;
 
     @Bean
     public UserDetailsService userDetailsService() {
-        return username -> userRepository.findByUsername(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+        // El timeout de la transacción se aplica a cada consulta JPA que se ejecuta dentro; va en segundos
+        TransactionTemplate lookup = new TransactionTemplate(transactionManager);
+        lookup.setReadOnly(true);
+        lookup.setTimeout((int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(queryTimeoutMs + 999)));
+        return username -> {
+            User user = lookup.execute(status -> userRepository.findByLoginIdentifier(username))
+                    .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+            user.resolveAuthorities(roleRegistry::authorityOf);
+            return user;
+        };
     }
 
     @Bean
@@ -2,6 +2,7 @@ package com.app.authjwt.config;
 
 import com.app.authjwt.security.JwtAuthenticationEntryPoint;
 import com.app.authjwt.security.JwtAuthenticationFilter;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -36,9 +37,15 @@ public class SecurityConfig {
                 .exceptionHandling(exception -> exception.authenticationEntryPoint(unauthorizedHandler))
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
+                        // El despacho asíncrono de un SSE ya se autorizó al abrir la conexión
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+
                         // Endpoints públicos de autenticación
                         .requestMatchers("/api/auth/v1/rest/signin", "/api/auth/v1/rest/signup").permitAll()
 
+                        // El intercambio valida el token por su cuenta (sin pasar por el filtro JWT)
+                        .requestMatchers(JwtAuthenticationFilter.TOKEN_EXCHANGE_PATH).permitAll()
+
                         // Endpoints de Actuator para Prometheus (IMPORTANTE)
                         .requestMatchers("/actuator/**").permitAll()
 
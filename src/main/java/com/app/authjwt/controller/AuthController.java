@@ -1,11 +1,22 @@
 package com.app.authjwt.controller;
 
+import com.app.authjwt.User.Model.User;
 import com.app.authjwt.User.Repository.UserRepository;
 import com.app.authjwt.auth.AuthService;
+import com.app.authjwt.auth.TokenExchangeService;
 import com.app.authjwt.dto.payload.request.LoginRequest;
 import com.app.authjwt.dto.payload.request.RegisterRequest;
+import com.app.authjwt.dto.payload.request.TokenExchangeRequest;
 import com.app.authjwt.dto.payload.response.AuthResponse;
 import com.app.authjwt.dto.payload.response.TokenValidationResponse;
+import com.app.authjwt.dto.payload.response.TokenValidationResponseTemplate;
+import com.app.authjwt.security.JwtAuthenticationFilter;
+import com.app.authjwt.security.JwtUtils;
+import com.app.authjwt.security.TokenFingerprint;
+import com.app.authjwt.token.OpaqueTokenEntry;
+import com.app.authjwt.token.OpaqueTokenStore;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -13,12 +24,24 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
 @RestController
 @RequestMapping("/api/auth/v1/rest")
 @RequiredArgsConstructor
@@ -27,10 +50,21 @@ public class AuthController {
 
     private final UserRepository userRepository;
     private final AuthService authService;
+    private final JwtUtils jwtUtils;
+    private final OpaqueTokenStore opaqueTokenStore;
+    private final TokenExchangeService tokenExchangeService;
+
+    // Tope del max-age de /validate: acota cuánto puede servir una caché intermedia un token ya revocado
+    @Value("${auth.validation.maxCacheSeconds:60}")
+    private long validationMaxCacheSeconds;
+
+    // Los tokens opacos se revocan al instante, por defecto su validación no se cachea
+    @Value("${auth.validation.opaqueMaxCacheSeconds:0}")
+    private long opaqueValidationMaxCacheSeconds;
 
     @Operation(
             summary = "Iniciar sesión",
-            description = "Autentica al usuario y retorna un token JWT válido."
+            description = "Autentica al usuario por username o email (sin distinguir mayúsculas) y retorna un token JWT válido."
     )
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Autenticación exitosa",
@@ -39,8 +73,8 @@ public class AuthController {
             @ApiResponse(responseCode = "404", description = "Usuario no encontrado", content = @Content)
     })
     @PostMapping(value = "signin")
-    public ResponseEntity<AuthResponse> login(@RequestBody LoginRequest request) {
-        return ResponseEntity.ok(authService.login(request));
+    public ResponseEntity<AuthResponse> login(@RequestBody LoginRequest request, HttpServletRequest httpRequest) {
+        return ResponseEntity.ok(authService.login(request, httpRequest.getRemoteAddr()));
     }
 
     @Operation(
@@ -53,36 +87,139 @@ public class AuthController {
             @ApiResponse(responseCode = "400", description = "El email o username ya están en uso", content = @Content)
     })
     @PostMapping(value = "signup")
-    public ResponseEntity<?> register(@RequestBody RegisterRequest request) {
-        if (userRepository.findByEmail(request.getEmail()).isPresent()) {
+    public ResponseEntity<?> register(@RequestBody RegisterRequest request, HttpServletRequest httpRequest) {
+        if (userRepository.existsByEmailNormalized(User.normalizeLoginIdentifier(request.getEmail()))) {
             return ResponseEntity.badRequest().body("Error: Email is already in use!");
         }
-        if (userRepository.findByUsername(request.getUsername()).isPresent()) {
-            return ResponseEntity.badRequest().body("Error: Username is already taken!");
+        // La disponibilidad del username la comprueba el servicio
+        try {
+            return ResponseEntity.ok(authService.register(request, httpRequest.getRemoteAddr()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         }
-        return ResponseEntity.ok(authService.register(request));
     }
 
     @Operation(
             summary = "Validar Token JWT",
-            description = "Verifica si el token enviado en el Header es válido. Si el token es inválido o ha expirado, el filtro de seguridad retornará 401/403 antes de llegar aquí.",
+            description = "Verifica si el token enviado en el Header es válido. Si el token es inválido o ha expirado, el filtro de seguridad retornará 401/403 antes de llegar aquí. "
+                    + "La respuesta incluye ETag y Cache-Control: max-age acotado por la vida restante del token.",
             security = @SecurityRequirement(name = "bearerAuth") // Importante para Swagger
     )
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Token válido",
                     content = @Content(mediaType = "application/json", schema = @Schema(implementation = TokenValidationResponse.class))),
+            @ApiResponse(responseCode = "304", description = "La respuesta cacheada (If-None-Match) sigue vigente", content = @Content),
             @ApiResponse(responseCode = "401", description = "Token inválido o expirado (Manejado por Security)", content = @Content)
     })
-    @GetMapping(value = "validate")
-    public ResponseEntity<TokenValidationResponse> validateToken() {
+    @GetMapping(value = "validate", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> validateToken(
+            @RequestHeader(HttpHeaders.AUTHORIZATION) String authorization,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            HttpServletRequest request) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String token = authorization.substring(7);
+
+        boolean opaque = OpaqueTokenStore.isOpaqueToken(token);
+        Instant expiresAt;
+        if (opaque) {
+            OpaqueTokenEntry entry = opaqueTokenStore.resolve(token);
+            if (entry == null) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+            }
+            expiresAt = Instant.ofEpochMilli(entry.getExpiresAt());
+        } else {
+            // El filtro ya verificó el token: se reutilizan sus claims en lugar de parsearlo otra vez
+            Claims claims = (Claims) request.getAttribute(JwtAuthenticationFilter.CLAIMS_ATTRIBUTE);
+            expiresAt = claims != null
+                    ? claims.getExpiration().toInstant()
+                    : jwtUtils.extractExpiration(token).toInstant();
+        }
+        String fingerprint = TokenFingerprint.of(token);
+        String eTag = "\"" + fingerprint + "-" + Integer.toHexString(authentication.getAuthorities().hashCode()) + "\"";
+
+        // La respuesta puede cachearse mientras el token siga vigente, nunca más allá del tope configurado
+        long maxCacheSeconds = opaque ? opaqueValidationMaxCacheSeconds : validationMaxCacheSeconds;
+        long maxAge = Math.min(maxCacheSeconds, Duration.between(Instant.now(), expiresAt).getSeconds());
+        CacheControl cacheControl = maxAge > 0
+                ? CacheControl.maxAge(maxAge, TimeUnit.SECONDS).cachePublic()
+                : CacheControl.noCache();
+
+        if (matchesETag(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(eTag)
+                    .cacheControl(cacheControl)
+                    .varyBy(HttpHeaders.AUTHORIZATION)
+                    .build();
+        }
 
-        return ResponseEntity.ok(TokenValidationResponse.builder()
-                .valid(true)
-                .username(authentication.getName())
-                .message("El token es válido y está activo.")
-                .build());
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .cacheControl(cacheControl)
+                .varyBy(HttpHeaders.AUTHORIZATION)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(TokenValidationResponseTemplate.render(
+                        authentication.getName(), expiresAt, authentication.getAuthorities(), fingerprint));
     }
 
-}
+    @Operation(
+            summary = "Cerrar sesión",
+            description = "Revoca de inmediato el token opaco enviado en el Header. Los JWT son autocontenidos y no pueden revocarse.",
+            security = @SecurityRequirement(name = "bearerAuth")
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Token revocado", content = @Content),
+            @ApiResponse(responseCode = "400", description = "El token no es revocable (JWT)", content = @Content)
+    })
+    @PostMapping(value = "signout")
+    public ResponseEntity<?> signout(@RequestHeader(HttpHeaders.AUTHORIZATION) String authorization) {
+        if (!authService.revokeToken(authorization.substring(7))) {
+            return ResponseEntity.badRequest().body("Error: Only opaque tokens can be revoked!");
+        }
+        return ResponseEntity.noContent().build();
+    }
 
+    @Operation(
+            summary = "Intercambiar token",
+            description = "Deriva del token del Header uno nuevo con un subconjunto de sus roles, una audiencia y una expiración corta. "
+                    + "Solo usa los claims verificados del token: no consulta la base de datos.",
+            security = @SecurityRequirement(name = "bearerAuth")
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Token derivado emitido",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = AuthResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Falta la audiencia o el Header Authorization", content = @Content),
+            @ApiResponse(responseCode = "401", description = "Token inválido o expirado", content = @Content),
+            @ApiResponse(responseCode = "403", description = "Se pidieron roles que el token original no tiene", content = @Content)
+    })
+    @PostMapping(value = "token/exchange")
+    public ResponseEntity<?> exchangeToken(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+            @RequestBody TokenExchangeRequest request) {
+        if (authorization == null || !authorization.startsWith("Bearer ")) {
+            return ResponseEntity.badRequest().body("Error: Bearer token is required!");
+        }
+        try {
+            return ResponseEntity.ok(tokenExchangeService.exchange(authorization.substring(7), request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (JwtException | AuthenticationException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Error: Token is invalid or expired!");
+        } catch (AccessDeniedException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(e.getMessage());
+        }
+    }
+
+    private static boolean matchesETag(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.equals("*") || value.equals(eTag) || value.equals("W/" + eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
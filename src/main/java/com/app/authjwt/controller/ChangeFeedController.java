@@ -0,0 +1,56 @@
+package com.app.authjwt.controller;
+
+import com.app.authjwt.changelog.ChangeFeedService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/admin/v1/rest/changes")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+@SecurityRequirement(name = "bearerAuth")
+@Tag(name = "Feed de cambios", description = "Eventos de cuentas, roles y revocaciones para servicios que validan tokens localmente")
+public class ChangeFeedController {
+
+    private final ChangeFeedService changeFeedService;
+
+    @Operation(summary = "Suscribirse a los cambios (SSE)",
+            description = "Flujo text/event-stream. Eventos: user-disabled, user-enabled, roles-changed, role-updated y token-revoked "
+                    + "(key es la huella del token), con data {\"key\":...,\"at\":epochMs}. El id de cada evento es su número de secuencia: "
+                    + "al reconectar con Last-Event-ID se reenvía lo perdido. Un evento reset indica que no fue posible y que hay que vaciar las cachés.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Suscripción abierta"),
+            @ApiResponse(responseCode = "403", description = "Requiere ROLE_ADMIN"),
+            @ApiResponse(responseCode = "503", description = "Límite de suscriptores alcanzado o registro de cambios no disponible")
+    })
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> subscribe(
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId,
+            @Parameter(description = "Alternativa a Last-Event-ID para clientes que no pueden fijar cabeceras")
+            @RequestParam(required = false) Long since) {
+        try {
+            return ResponseEntity.ok()
+                    // Evita que nginx acumule el flujo en su buffer
+                    .header("X-Accel-Buffering", "no")
+                    .body(changeFeedService.subscribe(lastEventId != null ? lastEventId : since));
+        } catch (IllegalStateException | DataAccessException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.app.authjwt.controller;
+
+import com.app.authjwt.User.service.UserService;
+import com.app.authjwt.dto.UserDto;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin/v1/rest/users")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+@SecurityRequirement(name = "bearerAuth")
+@Tag(name = "Administración de usuarios", description = "Cambios de cuenta que se propagan a todas las réplicas")
+public class UserAdminController {
+
+    private final UserService userService;
+
+    @Operation(summary = "Activar o desactivar usuario",
+            description = "Al desactivar, todas las réplicas revocan los tokens opacos del usuario en el siguiente sondeo del registro de cambios.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Estado actualizado"),
+            @ApiResponse(responseCode = "403", description = "Requiere ROLE_ADMIN"),
+            @ApiResponse(responseCode = "404", description = "Usuario no encontrado")
+    })
+    @PutMapping("{username}/enabled")
+    public ResponseEntity<UserDto> setEnabled(@PathVariable String username, @RequestParam boolean value) {
+        try {
+            return ResponseEntity.ok(userService.setEnabled(username, value));
+        } catch (UsernameNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @Operation(summary = "Reemplazar roles del usuario",
+            description = "Sustituye el conjunto de roles. Los tokens opacos emitidos con los roles anteriores se revocan en todas las réplicas.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Roles actualizados"),
+            @ApiResponse(responseCode = "400", description = "Rol desconocido"),
+            @ApiResponse(responseCode = "403", description = "Requiere ROLE_ADMIN"),
+            @ApiResponse(responseCode = "404", description = "Usuario no encontrado")
+    })
+    @PutMapping("{username}/roles")
+    public ResponseEntity<UserDto> updateRoles(@PathVariable String username, @RequestBody List<String> roles) {
+        try {
+            return ResponseEntity.ok(userService.updateRoles(username, roles));
+        } catch (UsernameNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
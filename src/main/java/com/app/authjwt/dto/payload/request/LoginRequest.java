@@ -12,7 +12,7 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 public class LoginRequest {
 
-    @Schema(description = "Nombre de usuario", example = "juanperez")
+    @Schema(description = "Nombre de usuario o correo electrónico", example = "juanperez")
     private String username;
 
     @Schema(description = "Contraseña del usuario", example = "123456")
@@ -0,0 +1,25 @@
+package com.app.authjwt.dto.payload.request;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class TokenExchangeRequest {
+
+    @Schema(description = "Servicio destinatario del nuevo token (claim aud)", example = "report-worker")
+    private String audience;
+
+    @Schema(description = "Subconjunto de roles del token original. Si se omite se conservan todos", example = "[\"ROLE_USER\"]")
+    private List<String> authorities;
+
+    @Schema(description = "Vida solicitada en segundos; se acota al máximo configurado y a la expiración del token original", example = "300")
+    private Long expiresInSeconds;
+}
@@ -1,12 +1,25 @@
 package com.app.authjwt.dto.payload.response;
 
+import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.Builder;
 import lombok.Data;
 
+import java.time.Instant;
+import java.util.List;
+
 @Data
 @Builder
 public class TokenValidationResponse {
     private boolean valid;
     private String username;
     private String message;
-}
\ No newline at end of file
+
+    @Schema(description = "Fecha de expiración del token", example = "2023-10-02T10:00:00Z")
+    private Instant expiresAt;
+
+    @Schema(description = "Roles concedidos al portador", example = "[\"ROLE_USER\"]")
+    private List<String> authorities;
+
+    @Schema(description = "Huella del token (SHA-256 truncado, base64url)", example = "q1w2e3r4t5y6u7i8o9p0aQ")
+    private String fingerprint;
+}
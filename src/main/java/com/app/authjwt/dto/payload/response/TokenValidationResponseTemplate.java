@@ -0,0 +1,44 @@
+package com.app.authjwt.dto.payload.response;
+
+import com.app.authjwt.util.JsonStrings;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Collection;
+
+/**
+ * Serializa {@link TokenValidationResponse} a partir de una plantilla precalculada, sin pasar por
+ * el grafo de objetos de Jackson. El orden y los nombres de los campos coinciden con el DTO.
+ */
+public final class TokenValidationResponseTemplate {
+
+    private static final String USERNAME = "{\"valid\":true,\"username\":";
+    private static final String MESSAGE = ",\"message\":\"El token es válido y está activo.\",\"expiresAt\":\"";
+    private static final String AUTHORITIES = "\",\"authorities\":[";
+    private static final String FINGERPRINT = "],\"fingerprint\":\"";
+    private static final String END = "\"}";
+    private static final int FIXED_LENGTH =
+            USERNAME.length() + MESSAGE.length() + AUTHORITIES.length() + FINGERPRINT.length() + END.length();
+
+    private TokenValidationResponseTemplate() {
+    }
+
+    public static byte[] render(String username, Instant expiresAt,
+                                Collection<? extends GrantedAuthority> authorities, String fingerprint) {
+        StringBuilder json = new StringBuilder(FIXED_LENGTH + 96 + authorities.size() * 24);
+        json.append(USERNAME);
+        JsonStrings.append(json, username);
+        json.append(MESSAGE).append(expiresAt).append(AUTHORITIES);
+        boolean first = true;
+        for (GrantedAuthority authority : authorities) {
+            if (!first) {
+                json.append(',');
+            }
+            JsonStrings.append(json, authority.getAuthority());
+            first = false;
+        }
+        json.append(FINGERPRINT).append(fingerprint).append(END);
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
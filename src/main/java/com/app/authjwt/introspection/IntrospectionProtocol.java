@@ -0,0 +1,26 @@
+package com.app.authjwt.introspection;
+
+/**
+ * Formato binario (big-endian) del protocolo de introspección por socket Unix.
+ *
+ * <pre>
+ * Petición:  int32 length | int32 requestId | token (US-ASCII, length - 4 bytes)
+ * Respuesta: int32 length | int32 requestId | int8 status | int64 exp (epoch s) | uint16 n | subject (UTF-8, n bytes)
+ * </pre>
+ *
+ * {@code length} cuenta los bytes que siguen al propio campo. Un cliente puede encadenar
+ * varias peticiones sin esperar respuesta; el servidor responde en el mismo orden.
+ */
+public final class IntrospectionProtocol {
+
+    public static final byte STATUS_VALID = 0;
+    public static final byte STATUS_INVALID = 1;
+    public static final byte STATUS_EXPIRED = 2;
+
+    public static final int MAX_TOKEN_LENGTH = 8 * 1024;
+    public static final int REQUEST_HEADER_LENGTH = 4;
+    public static final int RESPONSE_HEADER_LENGTH = 4 + 1 + 8 + 2;
+
+    private IntrospectionProtocol() {
+    }
+}
@@ -0,0 +1,17 @@
+package com.app.authjwt.introspection;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class IntrospectionResult {
+    private final int requestId;
+    private final byte status;
+    private final long expiresAtEpochSecond;
+    private final String subject;
+
+    public boolean isValid() {
+        return status == IntrospectionProtocol.STATUS_VALID;
+    }
+}
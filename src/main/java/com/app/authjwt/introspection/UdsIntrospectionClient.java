@@ -0,0 +1,96 @@
+package com.app.authjwt.introspection;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cliente bloqueante del protocolo de introspección. No es thread-safe: cada hilo debe usar su propia conexión.
+ */
+public class UdsIntrospectionClient implements Closeable {
+
+    private final SocketChannel channel;
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(64 * 1024);
+    private ByteBuffer writeBuffer = ByteBuffer.allocate(16 * 1024);
+    private int nextRequestId;
+
+    public UdsIntrospectionClient(Path socketPath) throws IOException {
+        this.channel = SocketChannel.open(StandardProtocolFamily.UNIX);
+        this.channel.connect(UnixDomainSocketAddress.of(socketPath));
+        this.readBuffer.flip();
+    }
+
+    public IntrospectionResult validate(String token) throws IOException {
+        return validateAll(List.of(token)).get(0);
+    }
+
+    /**
+     * Envía todas las peticiones en un solo write y lee las respuestas en orden.
+     */
+    public List<IntrospectionResult> validateAll(List<String> tokens) throws IOException {
+        writeBuffer.clear();
+        for (String token : tokens) {
+            byte[] bytes = token.getBytes(StandardCharsets.US_ASCII);
+            int frameLength = 4 + IntrospectionProtocol.REQUEST_HEADER_LENGTH + bytes.length;
+            if (writeBuffer.remaining() < frameLength) {
+                ByteBuffer larger = ByteBuffer.allocate(Math.max(writeBuffer.capacity() * 2, writeBuffer.position() + frameLength));
+                writeBuffer.flip();
+                larger.put(writeBuffer);
+                writeBuffer = larger;
+            }
+            writeBuffer.putInt(IntrospectionProtocol.REQUEST_HEADER_LENGTH + bytes.length)
+                    .putInt(nextRequestId++)
+                    .put(bytes);
+        }
+        writeBuffer.flip();
+        while (writeBuffer.hasRemaining()) {
+            channel.write(writeBuffer);
+        }
+
+        List<IntrospectionResult> results = new ArrayList<>(tokens.size());
+        for (int i = 0; i < tokens.size(); i++) {
+            results.add(readResult());
+        }
+        return results;
+    }
+
+    private IntrospectionResult readResult() throws IOException {
+        fill(4);
+        int length = readBuffer.getInt();
+        fill(length);
+        int requestId = readBuffer.getInt();
+        byte status = readBuffer.get();
+        long expiresAt = readBuffer.getLong();
+        int subjectLength = Short.toUnsignedInt(readBuffer.getShort());
+        byte[] subject = new byte[subjectLength];
+        readBuffer.get(subject);
+        return new IntrospectionResult(requestId, status, expiresAt,
+                subjectLength == 0 ? null : new String(subject, StandardCharsets.UTF_8));
+    }
+
+    private void fill(int needed) throws IOException {
+        if (readBuffer.remaining() >= needed) {
+            return;
+        }
+        readBuffer.compact();
+        while (readBuffer.position() < needed) {
+            if (channel.read(readBuffer) < 0) {
+                throw new EOFException("Introspection socket closed by server");
+            }
+        }
+        readBuffer.flip();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,355 @@
+package com.app.authjwt.introspection;
+
+import com.app.authjwt.security.JwtUtils;
+import com.app.authjwt.token.OpaqueTokenEntry;
+import com.app.authjwt.token.OpaqueTokenStore;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Iterator;
+
+/**
+ * Servidor NIO de introspección de tokens sobre un socket de dominio Unix, pensado para sidecars
+ * del mismo host. Valida firma y expiración con {@link JwtUtils}, o busca los tokens opacos en
+ * {@link OpaqueTokenStore}, sin pasar por Spring MVC ni por la cadena de seguridad. Un único hilo atiende todas las conexiones; cada conexión puede
+ * encadenar peticiones (ver {@link IntrospectionProtocol}).
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "auth.introspection.uds", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class UdsIntrospectionServer implements SmartLifecycle {
+
+    private static final int MAX_SUBJECT_LENGTH = 1024;
+    private static final int READ_BUFFER_SIZE = 4 + IntrospectionProtocol.REQUEST_HEADER_LENGTH + IntrospectionProtocol.MAX_TOKEN_LENGTH;
+    private static final int WRITE_BUFFER_SIZE = 16 * 1024;
+    // Si el cliente no lee sus respuestas dejamos de leer sus peticiones
+    private static final int WRITE_HIGH_WATER_MARK = 256 * 1024;
+    private static final byte[] NO_SUBJECT = new byte[0];
+
+    private final JwtUtils jwtUtils;
+    private final OpaqueTokenStore opaqueTokenStore;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${auth.introspection.uds.path:/tmp/jwt-auth.sock}")
+    private String socketPath;
+
+    private Counter validCounter;
+    private Counter invalidCounter;
+    private Counter expiredCounter;
+
+    private Selector selector;
+    private ServerSocketChannel serverChannel;
+    private Thread eventLoop;
+    private volatile boolean running;
+
+    @PostConstruct
+    void init() {
+        validCounter = statusCounter("valid");
+        invalidCounter = statusCounter("invalid");
+        expiredCounter = statusCounter("expired");
+    }
+
+    private Counter statusCounter(String status) {
+        return Counter.builder("auth.introspection.uds.requests")
+                .description("Validaciones atendidas por el socket de introspección")
+                .tag("status", status)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void start() {
+        Path path = Path.of(socketPath).toAbsolutePath();
+        try {
+            Files.deleteIfExists(path);
+            serverChannel = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+            bindPrivately(path);
+            serverChannel.configureBlocking(false);
+            selector = Selector.open();
+            serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot bind introspection socket " + path, e);
+        }
+        running = true;
+        eventLoop = new Thread(this::eventLoop, "uds-introspection");
+        eventLoop.setDaemon(true);
+        eventLoop.start();
+        log.info("Token introspection listening on {}", path);
+    }
+
+    /**
+     * El socket se crea dentro de un directorio 0700 y solo se mueve a su ruta definitiva tras
+     * restringir sus permisos: nunca es accesible con los permisos por defecto del proceso.
+     */
+    private void bindPrivately(Path path) throws IOException {
+        Path staging = createPrivateDirectory(path.getParent());
+        Path staged = staging.resolve(path.getFileName());
+        try {
+            serverChannel.bind(UnixDomainSocketAddress.of(staged));
+            restrictPermissions(staged);
+            Files.move(staged, path, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(staged);
+            Files.deleteIfExists(staging);
+        }
+    }
+
+    private static Path createPrivateDirectory(Path parent) throws IOException {
+        try {
+            return Files.createTempDirectory(parent, ".introspection-",
+                    PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+        } catch (UnsupportedOperationException e) {
+            // Sistema de ficheros sin permisos POSIX
+            return Files.createTempDirectory(parent, ".introspection-");
+        }
+    }
+
+    private static void restrictPermissions(Path path) throws IOException {
+        try {
+            Files.setPosixFilePermissions(path, PosixFilePermissions.fromString("rw-rw----"));
+        } catch (UnsupportedOperationException e) {
+            // Sistema de ficheros sin permisos POSIX
+        }
+    }
+
+    private void eventLoop() {
+        while (running) {
+            try {
+                selector.select();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    handleSafely(key);
+                }
+            } catch (IOException | RuntimeException e) {
+                if (running) {
+                    log.error("Introspection event loop failure", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Un fallo inesperado al atender una conexión cierra solo esa conexión; el hilo sigue atendiendo al resto.
+     */
+    private void handleSafely(SelectionKey key) {
+        try {
+            handle(key);
+        } catch (IOException | RuntimeException e) {
+            if (key.channel() == serverChannel) {
+                log.warn("Could not accept introspection connection", e);
+            } else {
+                log.error("Closing introspection connection after unexpected failure", e);
+                close(key);
+            }
+        }
+    }
+
+    private void handle(SelectionKey key) throws IOException {
+        if (!key.isValid()) {
+            return;
+        }
+        if (key.isAcceptable()) {
+            SocketChannel channel = serverChannel.accept();
+            if (channel != null) {
+                channel.configureBlocking(false);
+                channel.register(selector, SelectionKey.OP_READ, new Connection());
+            }
+            return;
+        }
+        SocketChannel channel = (SocketChannel) key.channel();
+        Connection connection = (Connection) key.attachment();
+        try {
+            if (key.isReadable() && !read(channel, connection)) {
+                close(key);
+                return;
+            }
+            if (key.isWritable() || connection.hasPendingOutput()) {
+                flush(channel, connection);
+            }
+            int interest = connection.hasPendingOutput() ? SelectionKey.OP_WRITE : 0;
+            if (connection.pendingOutput() < WRITE_HIGH_WATER_MARK) {
+                interest |= SelectionKey.OP_READ;
+            }
+            key.interestOps(interest);
+        } catch (IOException e) {
+            close(key);
+        }
+    }
+
+    /**
+     * Lee lo disponible y procesa todas las peticiones completas. Devuelve {@code false} si hay que cerrar.
+     */
+    private boolean read(SocketChannel channel, Connection connection) throws IOException {
+        ByteBuffer in = connection.in;
+        if (channel.read(in) < 0) {
+            return false;
+        }
+        in.flip();
+        try {
+            while (in.remaining() >= 4) {
+                int length = in.getInt(in.position());
+                if (length < IntrospectionProtocol.REQUEST_HEADER_LENGTH
+                        || length > IntrospectionProtocol.REQUEST_HEADER_LENGTH + IntrospectionProtocol.MAX_TOKEN_LENGTH) {
+                    return false;
+                }
+                if (in.remaining() < 4 + length) {
+                    break;
+                }
+                in.getInt();
+                int requestId = in.getInt();
+                int tokenLength = length - IntrospectionProtocol.REQUEST_HEADER_LENGTH;
+                String token = new String(in.array(), in.arrayOffset() + in.position(), tokenLength, StandardCharsets.US_ASCII);
+                in.position(in.position() + tokenLength);
+                respond(connection, requestId, token);
+            }
+        } finally {
+            in.compact();
+        }
+        return true;
+    }
+
+    private void respond(Connection connection, int requestId, String token) {
+        byte status;
+        long expiresAt = 0;
+        byte[] subject = NO_SUBJECT;
+        if (OpaqueTokenStore.isOpaqueToken(token)) {
+            // Un token opaco caducado ya no está en el almacén: se responde como inválido
+            OpaqueTokenEntry entry = opaqueTokenStore.resolve(token);
+            if (entry == null || !entry.getPrincipal().isEnabled()) {
+                status = IntrospectionProtocol.STATUS_INVALID;
+            } else {
+                subject = entry.getPrincipal().getUsername().getBytes(StandardCharsets.UTF_8);
+                status = IntrospectionProtocol.STATUS_VALID;
+                expiresAt = entry.getExpiresAt() / 1000;
+            }
+        } else {
+            try {
+                Claims claims = jwtUtils.extractAllClaims(token);
+                subject = claims.getSubject() == null ? NO_SUBJECT : claims.getSubject().getBytes(StandardCharsets.UTF_8);
+                status = IntrospectionProtocol.STATUS_VALID;
+                expiresAt = claims.getExpiration() == null ? 0 : claims.getExpiration().getTime() / 1000;
+            } catch (ExpiredJwtException e) {
+                status = IntrospectionProtocol.STATUS_EXPIRED;
+            } catch (JwtException | IllegalArgumentException e) {
+                status = IntrospectionProtocol.STATUS_INVALID;
+            }
+        }
+        if (subject.length > MAX_SUBJECT_LENGTH) {
+            subject = NO_SUBJECT;
+            status = IntrospectionProtocol.STATUS_INVALID;
+            expiresAt = 0;
+        }
+
+        switch (status) {
+            case IntrospectionProtocol.STATUS_VALID -> validCounter.increment();
+            case IntrospectionProtocol.STATUS_EXPIRED -> expiredCounter.increment();
+            default -> invalidCounter.increment();
+        }
+
+        int length = IntrospectionProtocol.RESPONSE_HEADER_LENGTH + subject.length;
+        connection.reserve(4 + length)
+                .putInt(length)
+                .putInt(requestId)
+                .put(status)
+                .putLong(expiresAt)
+                .putShort((short) subject.length)
+                .put(subject);
+    }
+
+    private void flush(SocketChannel channel, Connection connection) throws IOException {
+        ByteBuffer out = connection.out;
+        out.flip();
+        try {
+            channel.write(out);
+        } finally {
+            out.compact();
+        }
+    }
+
+    private void close(SelectionKey key) {
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException e) {
+            log.debug("Error closing introspection connection", e);
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        selector.wakeup();
+        try {
+            eventLoop.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            for (SelectionKey key : selector.keys()) {
+                key.channel().close();
+            }
+            selector.close();
+            Files.deleteIfExists(Path.of(socketPath));
+        } catch (IOException e) {
+            log.warn("Error shutting down introspection socket", e);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private static final class Connection {
+        private final ByteBuffer in = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        // En modo escritura: position = bytes pendientes de enviar
+        private ByteBuffer out = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+
+        ByteBuffer reserve(int bytes) {
+            if (out.remaining() < bytes) {
+                ByteBuffer larger = ByteBuffer.allocate(Math.max(out.capacity() * 2, out.position() + bytes));
+                out.flip();
+                larger.put(out);
+                out = larger;
+            }
+            return out;
+        }
+
+        int pendingOutput() {
+            return out.position();
+        }
+
+        boolean hasPendingOutput() {
+            return out.position() > 0;
+        }
+    }
+}
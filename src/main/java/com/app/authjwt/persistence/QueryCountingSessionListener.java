@@ -0,0 +1,47 @@
+package com.app.authjwt.persistence;
+
+import org.hibernate.SessionEventListener;
+
+/**
+ * Hibernate crea una instancia por sesión ({@code hibernate.session.events.auto}). Cada evento JDBC
+ * se anota en el {@link QueryStats} del hilo, si hay uno abierto; si no, no hace nada.
+ */
+public class QueryCountingSessionListener implements SessionEventListener {
+
+    private long executeStartedAt;
+    private long batchStartedAt;
+
+    @Override
+    public void jdbcPrepareStatementEnd() {
+        QueryStats stats = QueryStats.current();
+        if (stats != null) {
+            stats.statementPrepared();
+        }
+    }
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        executeStartedAt = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        QueryStats stats = QueryStats.current();
+        if (stats != null) {
+            stats.executed(System.nanoTime() - executeStartedAt);
+        }
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        batchStartedAt = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        QueryStats stats = QueryStats.current();
+        if (stats != null) {
+            stats.executed(System.nanoTime() - batchStartedAt);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.app.authjwt.persistence;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cuenta las sentencias SQL de cada petición, incluidas las del filtro JWT: va por delante de la
+ * cadena de Spring Security. Publica {@code auth.db.statements} y {@code auth.db.time} por endpoint
+ * (patrón de la ruta, no la URI, para acotar la cardinalidad).
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@RequiredArgsConstructor
+public class QueryMetricsFilter extends OncePerRequestFilter {
+
+    private static final String UNKNOWN_ENDPOINT = "UNKNOWN";
+
+    private final MeterRegistry meterRegistry;
+    // Medidores ya registrados por endpoint: el registro solo se consulta la primera vez
+    private final ConcurrentHashMap<Endpoint, EndpointMeters> meters = new ConcurrentHashMap<>();
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        QueryStats previous = QueryStats.start();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            QueryStats stats = QueryStats.restore(previous);
+            request.setAttribute(QueryStats.REQUEST_ATTRIBUTE, stats);
+            record(request, stats);
+        }
+    }
+
+    private void record(HttpServletRequest request, QueryStats stats) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern == null ? UNKNOWN_ENDPOINT : pattern.toString();
+        EndpointMeters endpointMeters = meters.computeIfAbsent(new Endpoint(request.getMethod(), uri), this::register);
+        endpointMeters.statements().record(stats.getStatements());
+        endpointMeters.time().record(stats.getExecutionNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    private EndpointMeters register(Endpoint endpoint) {
+        DistributionSummary statements = DistributionSummary.builder("auth.db.statements")
+                .description("Sentencias SQL emitidas por petición")
+                .tag("method", endpoint.method())
+                .tag("uri", endpoint.uri())
+                .register(meterRegistry);
+        Timer time = Timer.builder("auth.db.time")
+                .description("Tiempo de ejecución JDBC acumulado por petición")
+                .tag("method", endpoint.method())
+                .tag("uri", endpoint.uri())
+                .register(meterRegistry);
+        return new EndpointMeters(statements, time);
+    }
+
+    private record Endpoint(String method, String uri) {
+    }
+
+    private record EndpointMeters(DistributionSummary statements, Timer time) {
+    }
+}
@@ -0,0 +1,58 @@
+package com.app.authjwt.persistence;
+
+/**
+ * Sentencias SQL emitidas por Hibernate en el hilo actual mientras hay una medición abierta.
+ * {@link QueryMetricsFilter} abre una por petición; los tests pueden abrir la suya con {@link #start()}.
+ */
+public final class QueryStats {
+
+    /** Atributo de la petición donde {@link QueryMetricsFilter} deja las estadísticas al terminar. */
+    public static final String REQUEST_ATTRIBUTE = QueryStats.class.getName();
+
+    private static final ThreadLocal<QueryStats> CURRENT = new ThreadLocal<>();
+
+    private int statements;
+    private long executionNanos;
+
+    /**
+     * Abre una medición en el hilo actual y devuelve la anterior (o {@code null}) para restaurarla con {@link #restore}.
+     */
+    public static QueryStats start() {
+        QueryStats previous = CURRENT.get();
+        CURRENT.set(new QueryStats());
+        return previous;
+    }
+
+    public static QueryStats current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Cierra la medición actual, devuelve sus valores y reactiva la anterior.
+     */
+    public static QueryStats restore(QueryStats previous) {
+        QueryStats finished = CURRENT.get();
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+        return finished;
+    }
+
+    void statementPrepared() {
+        statements++;
+    }
+
+    void executed(long nanos) {
+        executionNanos += nanos;
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public long getExecutionNanos() {
+        return executionNanos;
+    }
+}
@@ -0,0 +1,138 @@
+package com.app.authjwt.resilience;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Circuit breaker por fallos consecutivos. Con el circuito cerrado, {@link #tryAcquire()} y
+ * {@link #onSuccess} solo leen un volátil; las transiciones se sincronizan sobre la instancia.
+ * <ul>
+ *   <li>CLOSED → OPEN tras {@code failureThreshold} fallos seguidos.</li>
+ *   <li>OPEN → HALF_OPEN cuando pasa {@code openDurationMs}; se admiten hasta {@code probes} sondas a la vez.</li>
+ *   <li>HALF_OPEN → CLOSED cuando {@code probes} sondas terminan bien; cualquier sonda fallida lo reabre.</li>
+ * </ul>
+ */
+public final class CircuitBreaker {
+
+    private static final long NO_OUTAGE = -1;
+
+    private final int failureThreshold;
+    private final long openDurationMs;
+    private final int probes;
+    private final LongSupplier clock;
+
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private volatile CircuitState state = CircuitState.CLOSED;
+    // Momento de la primera apertura de la caída actual; se mantiene al reabrir desde HALF_OPEN
+    private volatile long outageStartedAt = NO_OUTAGE;
+    private long openedAt;
+    private int probesInFlight;
+    private int probeSuccesses;
+
+    public CircuitBreaker(int failureThreshold, long openDurationMs, int probes, LongSupplier clock) {
+        if (failureThreshold < 1 || probes < 1) {
+            throw new IllegalArgumentException("failureThreshold and probes must be positive");
+        }
+        this.failureThreshold = failureThreshold;
+        this.openDurationMs = openDurationMs;
+        this.probes = probes;
+        this.clock = clock;
+    }
+
+    public CircuitPermit tryAcquire() {
+        if (state == CircuitState.CLOSED) {
+            return CircuitPermit.CALL;
+        }
+        synchronized (this) {
+            if (state == CircuitState.OPEN) {
+                if (clock.getAsLong() - openedAt < openDurationMs) {
+                    return CircuitPermit.REJECTED;
+                }
+                state = CircuitState.HALF_OPEN;
+                probesInFlight = 0;
+                probeSuccesses = 0;
+            }
+            if (state == CircuitState.HALF_OPEN) {
+                if (probesInFlight >= probes) {
+                    return CircuitPermit.REJECTED;
+                }
+                probesInFlight++;
+                return CircuitPermit.PROBE;
+            }
+            return CircuitPermit.CALL;
+        }
+    }
+
+    public void onSuccess(CircuitPermit permit) {
+        if (permit == CircuitPermit.PROBE) {
+            synchronized (this) {
+                if (state == CircuitState.HALF_OPEN) {
+                    probesInFlight--;
+                    if (++probeSuccesses >= probes) {
+                        close();
+                    }
+                }
+            }
+        } else if (consecutiveFailures.get() != 0) {
+            consecutiveFailures.set(0);
+        }
+    }
+
+    public void onFailure(CircuitPermit permit) {
+        if (permit == CircuitPermit.PROBE) {
+            synchronized (this) {
+                if (state == CircuitState.HALF_OPEN) {
+                    open();
+                }
+            }
+        } else if (consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            synchronized (this) {
+                if (state == CircuitState.CLOSED) {
+                    outageStartedAt = clock.getAsLong();
+                    open();
+                }
+            }
+        }
+    }
+
+    /**
+     * Devuelve el permiso sin resultado: la llamada no llegó a la base de datos (p. ej. esperó a la
+     * de otro hilo). Libera la plaza de sonda sin contar ni éxito ni fallo.
+     */
+    public void release(CircuitPermit permit) {
+        if (permit == CircuitPermit.PROBE) {
+            synchronized (this) {
+                if (state == CircuitState.HALF_OPEN) {
+                    probesInFlight--;
+                }
+            }
+        }
+    }
+
+    private void open() {
+        openedAt = clock.getAsLong();
+        state = CircuitState.OPEN;
+    }
+
+    private void close() {
+        consecutiveFailures.set(0);
+        outageStartedAt = NO_OUTAGE;
+        state = CircuitState.CLOSED;
+    }
+
+    public CircuitState getState() {
+        return state;
+    }
+
+    public int getConsecutiveFailures() {
+        return consecutiveFailures.get();
+    }
+
+    /**
+     * Milisegundos desde que se abrió el circuito en la caída actual, o {@code 0} si está cerrado.
+     */
+    public long outageDurationMs() {
+        long startedAt = outageStartedAt;
+        return startedAt == NO_OUTAGE ? 0 : clock.getAsLong() - startedAt;
+    }
+}
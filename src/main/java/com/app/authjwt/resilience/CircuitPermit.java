@@ -0,0 +1,14 @@
+package com.app.authjwt.resilience;
+
+/**
+ * Resultado de {@link CircuitBreaker#tryAcquire()}. Se devuelve al breaker junto con el resultado
+ * de la llamada para que distinga las sondas del tráfico normal.
+ */
+public enum CircuitPermit {
+    /** Circuito cerrado: llamada normal. */
+    CALL,
+    /** Circuito semiabierto: esta llamada es una de las sondas permitidas. */
+    PROBE,
+    /** Circuito abierto o sin sondas libres: no llamar. */
+    REJECTED
+}
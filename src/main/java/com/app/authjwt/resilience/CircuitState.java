@@ -0,0 +1,7 @@
+package com.app.authjwt.resilience;
+
+public enum CircuitState {
+    CLOSED,
+    OPEN,
+    HALF_OPEN
+}
@@ -0,0 +1,109 @@
+package com.app.authjwt.resilience;
+
+import org.springframework.dao.QueryTimeoutException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Agrupa cargas concurrentes de la misma clave: el primer hilo ejecuta la carga en su propio hilo
+ * y los que llegan mientras tanto esperan su resultado o su excepción (la misma instancia) en lugar
+ * de repetirla. No guarda nada: en cuanto la carga termina, la siguiente llamada vuelve a ejecutarla.
+ * <p>
+ * Solo los que esperan tienen límite de tiempo ({@code timeoutMs}); el que ejecuta depende del
+ * timeout de la propia carga, que debe tenerlo. Si la espera vence se lanza {@link QueryTimeoutException}.
+ * <p>
+ * Quien necesite distinguir al que ejecutó la carga de los que se unieron (p. ej. para contar un
+ * único fallo) pasa {@code onShared}: solo lo invocan estos últimos, al terminar su espera.
+ */
+public final class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final long timeoutMs;
+    private final LongAdder executed = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+
+    public SingleFlight(long timeoutMs) {
+        if (timeoutMs < 0) {
+            throw new IllegalArgumentException("timeoutMs must not be negative");
+        }
+        this.timeoutMs = timeoutMs;
+    }
+
+    public V execute(K key, Supplier<V> loader) {
+        return execute(key, loader, null);
+    }
+
+    /**
+     * @param onShared se ejecuta en este hilo si se unió a una carga en curso en lugar de ejecutarla,
+     *                 tanto si recibe su valor como su excepción o vence la espera; puede ser {@code null}
+     */
+    public V execute(K key, Supplier<V> loader, Runnable onShared) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            coalesced.increment();
+            try {
+                return await(existing);
+            } finally {
+                if (onShared != null) {
+                    onShared.run();
+                }
+            }
+        }
+        executed.increment();
+        try {
+            V value = loader.get();
+            flight.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    private V await(CompletableFuture<V> flight) {
+        try {
+            return flight.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(cause);
+        } catch (TimeoutException e) {
+            timedOut.increment();
+            throw new QueryTimeoutException("Timed out after " + timeoutMs + " ms waiting for in-flight load", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new QueryTimeoutException("Interrupted while waiting for in-flight load", e);
+        }
+    }
+
+    public long getExecuted() {
+        return executed.sum();
+    }
+
+    public long getCoalesced() {
+        return coalesced.sum();
+    }
+
+    public long getTimedOut() {
+        return timedOut.sum();
+    }
+
+    public int getInFlight() {
+        return inFlight.size();
+    }
+}
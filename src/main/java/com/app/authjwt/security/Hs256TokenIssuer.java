@@ -0,0 +1,117 @@
+package com.app.authjwt.security;
+
+import com.app.authjwt.util.JsonStrings;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.InvalidKeyException;
+import java.util.Base64;
+import java.util.Collection;
+
+/**
+ * Emisor especializado de tokens HS256 con los claims que genera {@link JwtUtils}
+ * ({@code sub}, {@code aud}, {@code roles}, {@code iat}, {@code exp}). Evita el builder genérico
+ * de jjwt: la cabecera se codifica una sola vez, el payload se serializa directamente y cada hilo
+ * reutiliza su propia instancia de {@link Mac} ya inicializada con la clave.
+ */
+public final class Hs256TokenIssuer {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final byte[] ENCODED_HEADER =
+            ENCODER.encode("{\"alg\":\"HS256\"}".getBytes(StandardCharsets.UTF_8));
+    private static final int ENCODED_SIGNATURE_LENGTH = 43;
+
+    private final SecretKeySpec key;
+    private final ThreadLocal<Mac> macs;
+
+    public Hs256TokenIssuer(byte[] keyBytes) {
+        this.key = new SecretKeySpec(keyBytes, ALGORITHM);
+        try {
+            Mac.getInstance(ALGORITHM).init(key);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalArgumentException("Invalid HS256 signing key", e);
+        }
+        this.macs = ThreadLocal.withInitial(this::newMac);
+    }
+
+    public String issue(String subject, long issuedAtMillis, long expirationMillis) {
+        return issue(subject, null, null, issuedAtMillis, expirationMillis);
+    }
+
+    /**
+     * Emite un token con {@code sub}, {@code aud} y {@code roles} opcionales (se omiten si son {@code null}), {@code iat} y {@code exp}.
+     */
+    public String issue(String subject, String audience, Collection<String> roles, long issuedAtMillis, long expirationMillis) {
+        return issue(subject, audience, JwtUtils.ROLES_CLAIM, roles, issuedAtMillis, true, expirationMillis);
+    }
+
+    /**
+     * Variante con nombre de claim de roles configurable y {@code iat} opcional. Los roles pueden ser
+     * nombres o códigos numéricos: los {@link Number} se escriben sin comillas.
+     */
+    public String issue(String subject, String audience, String rolesClaim, Collection<?> roles,
+                        long issuedAtMillis, boolean includeIssuedAt, long expirationMillis) {
+        StringBuilder payload = new StringBuilder(64 + subject.length() + (roles == null ? 0 : roles.size() * 16));
+        payload.append("{\"sub\":");
+        JsonStrings.append(payload, subject);
+        if (audience != null) {
+            payload.append(",\"aud\":");
+            JsonStrings.append(payload, audience);
+        }
+        if (roles != null) {
+            payload.append(",\"").append(rolesClaim).append("\":[");
+            boolean first = true;
+            for (Object role : roles) {
+                if (!first) {
+                    payload.append(',');
+                }
+                if (role instanceof Number code) {
+                    payload.append(code.longValue());
+                } else {
+                    JsonStrings.append(payload, String.valueOf(role));
+                }
+                first = false;
+            }
+            payload.append(']');
+        }
+        if (includeIssuedAt) {
+            payload.append(",\"iat\":").append(issuedAtMillis / 1000);
+        }
+        payload.append(",\"exp\":").append(expirationMillis / 1000)
+                .append('}');
+        return sign(payload);
+    }
+
+    String sign(CharSequence payloadJson) {
+        byte[] encodedPayload = ENCODER.encode(payloadJson.toString().getBytes(StandardCharsets.UTF_8));
+        int signingInputLength = ENCODED_HEADER.length + 1 + encodedPayload.length;
+        byte[] token = new byte[signingInputLength + 1 + ENCODED_SIGNATURE_LENGTH];
+
+        System.arraycopy(ENCODED_HEADER, 0, token, 0, ENCODED_HEADER.length);
+        token[ENCODED_HEADER.length] = '.';
+        System.arraycopy(encodedPayload, 0, token, ENCODED_HEADER.length + 1, encodedPayload.length);
+
+        Mac mac = macs.get();
+        mac.update(token, 0, signingInputLength);
+        byte[] encodedSignature = ENCODER.encode(mac.doFinal());
+
+        token[signingInputLength] = '.';
+        System.arraycopy(encodedSignature, 0, token, signingInputLength + 1, ENCODED_SIGNATURE_LENGTH);
+        return new String(token, StandardCharsets.ISO_8859_1);
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (InvalidKeyException e) {
+            throw new IllegalStateException("Invalid HS256 signing key", e);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        }
+    }
+}
@@ -1,5 +1,11 @@
 package com.app.authjwt.security;
 
+import com.app.authjwt.audit.AuthAuditEventType;
+import com.app.authjwt.audit.AuthAuditService;
+import com.app.authjwt.token.OpaqueTokenEntry;
+import com.app.authjwt.token.OpaqueTokenStore;
+import io.jsonwebtoken.Claims;
+
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -9,7 +15,6 @@ import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -20,8 +25,22 @@ import java.io.IOException;
 @RequiredArgsConstructor // Inyección automática de final fields
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    public static final String TOKEN_EXCHANGE_PATH = "/api/auth/v1/rest/token/exchange";
+    // Claims ya verificados del JWT de la petición: los controladores no necesitan volver a parsear el token
+    public static final String CLAIMS_ATTRIBUTE = JwtAuthenticationFilter.class.getName() + ".CLAIMS";
+
     private final JwtUtils jwtService;
-    private final UserDetailsService userDetailsService;
+    private final PrincipalLookupService principalLookupService;
+    private final AuthAuditService auditService;
+    private final OpaqueTokenStore opaqueTokenStore;
+    // Sin estado: se comparte entre peticiones en lugar de crear uno por petición
+    private final WebAuthenticationDetailsSource authenticationDetailsSource = new WebAuthenticationDetailsSource();
+
+    // El intercambio verifica el token por sí mismo sin consultar la base de datos
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return TOKEN_EXCHANGE_PATH.equals(request.getRequestURI().substring(request.getContextPath().length()));
+    }
 
     @Override
     protected void doFilterInternal(
@@ -32,7 +51,6 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         final String authHeader = request.getHeader("Authorization");
         final String jwt;
-        final String userEmail;
 
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
             filterChain.doFilter(request, response);
@@ -41,27 +59,70 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         try {
             jwt = authHeader.substring(7);
-            userEmail = jwtService.extractUsername(jwt);
-
-            if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = this.userDetailsService.loadUserByUsername(userEmail);
-
-                if (jwtService.isTokenValid(jwt, userDetails)) {
-                    UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                            userDetails,
-                            null,
-                            userDetails.getAuthorities()
-                    );
-                    authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                    SecurityContextHolder.getContext().setAuthentication(authToken);
-                }
+            if (OpaqueTokenStore.isOpaqueToken(jwt)) {
+                authenticateOpaqueToken(jwt, request);
+            } else {
+                authenticateJwt(jwt, request);
             }
         } catch (Exception e) {
             // No enviar error aquí, dejar que falle la autenticación
             // Spring Security lo capturará en el EntryPoint si el contexto está vacío
             logger.error("Cannot set user authentication: {}", e);
+            auditService.record(AuthAuditEventType.TOKEN_REJECTED, null, request.getRemoteAddr(), e.getClass().getSimpleName());
         }
 
         filterChain.doFilter(request, response);
     }
-}
\ No newline at end of file
+
+    private void authenticateJwt(String jwt, HttpServletRequest request) {
+        // Un único parseo del token: subject y expiración salen de los mismos claims
+        final Claims claims = jwtService.extractAllClaims(jwt);
+        final String userEmail = claims.getSubject();
+
+        if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            // Con la base de datos caída responde desde la última copia o los claims (ventana de gracia)
+            UserDetails userDetails = principalLookupService.loadUser(userEmail, claims);
+
+            if (!isActive(userDetails)) {
+                auditService.record(AuthAuditEventType.TOKEN_REJECTED, userEmail, request.getRemoteAddr(), "Account disabled or locked");
+            } else if (jwtService.isTokenValid(claims, userDetails)) {
+                UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                        userDetails,
+                        null,
+                        jwtService.effectiveAuthorities(claims, userDetails)
+                );
+                authToken.setDetails(authenticationDetailsSource.buildDetails(request));
+                SecurityContextHolder.getContext().setAuthentication(authToken);
+                request.setAttribute(CLAIMS_ATTRIBUTE, claims);
+            } else {
+                auditService.record(AuthAuditEventType.TOKEN_REJECTED, userEmail, request.getRemoteAddr(), "Token expired or subject mismatch");
+            }
+        }
+    }
+
+    // Un token bien firmado no basta: la cuenta tiene que seguir activa
+    private static boolean isActive(UserDetails principal) {
+        return principal.isEnabled() && principal.isAccountNonLocked();
+    }
+
+    /**
+     * Token opaco: una búsqueda en el almacén en memoria sustituye a la verificación de firma y a la consulta del usuario.
+     */
+    private void authenticateOpaqueToken(String token, HttpServletRequest request) {
+        OpaqueTokenEntry entry = opaqueTokenStore.resolve(token);
+        if (entry == null) {
+            auditService.record(AuthAuditEventType.TOKEN_REJECTED, null, request.getRemoteAddr(), "Unknown, revoked or expired opaque token");
+            return;
+        }
+        if (SecurityContextHolder.getContext().getAuthentication() == null && isActive(entry.getPrincipal())) {
+            UserDetails principal = entry.getPrincipal();
+            UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                    principal,
+                    null,
+                    principal.getAuthorities()
+            );
+            authToken.setDetails(authenticationDetailsSource.buildDetails(request));
+            SecurityContextHolder.getContext().setAuthentication(authToken);
+        }
+    }
+}
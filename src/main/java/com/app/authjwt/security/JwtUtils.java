@@ -1,31 +1,82 @@
 package com.app.authjwt.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.function.Function;
 
 @Service
 public class JwtUtils {
 
+    public static final String ROLES_CLAIM = "roles";
+    public static final String COMPACT_ROLES_CLAIM = "r";
+
     @Value("${auth.app.jwtSecret:defaultSecretKeyForDevelopment1234567890123456789012}")
     private String jwtSecret;
 
     @Value("${auth.app.jwtExpirationMs:86400000}")
     private long jwtExpirationMs;
 
+    @Value("${auth.token.profile:STANDARD}")
+    private TokenProfile tokenProfile = TokenProfile.STANDARD;
+
+    // Claims opcionales que pueden aparecer en los tokens emitidos; sub y exp se incluyen siempre
+    @Value("${auth.token.claims:aud,roles,iat}")
+    private Set<String> allowedClaims = Set.of("aud", ROLES_CLAIM, "iat");
+
+    @Autowired(required = false)
+    private RoleCodec roleCodec;
+
+    // La clave, el parser y el emisor se derivan una sola vez del secreto configurado
+    private volatile SecretKey signInKey;
+    private volatile JwtParser jwtParser;
+    private volatile Hs256TokenIssuer tokenIssuer;
+
     private SecretKey getSignInKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(jwtSecret);
-        return Keys.hmacShaKeyFor(keyBytes);
+        SecretKey key = signInKey;
+        if (key == null) {
+            byte[] keyBytes = Decoders.BASE64.decode(jwtSecret);
+            key = Keys.hmacShaKeyFor(keyBytes);
+            signInKey = key;
+        }
+        return key;
+    }
+
+    private JwtParser getParser() {
+        JwtParser parser = jwtParser;
+        if (parser == null) {
+            parser = Jwts.parser()
+                    .verifyWith(getSignInKey())
+                    .build();
+            jwtParser = parser;
+        }
+        return parser;
+    }
+
+    private Hs256TokenIssuer getTokenIssuer() {
+        Hs256TokenIssuer issuer = tokenIssuer;
+        if (issuer == null) {
+            issuer = new Hs256TokenIssuer(getSignInKey().getEncoded());
+            tokenIssuer = issuer;
+        }
+        return issuer;
     }
 
     // CORRECCIÓN: Renombrado para coincidir con el Filtro
@@ -39,14 +90,107 @@ public class JwtUtils {
     }
 
     public String generateToken(UserDetails userDetails) {
-        return generateToken(new HashMap<>(), userDetails);
+        long now = System.currentTimeMillis();
+        List<String> roles = new ArrayList<>(userDetails.getAuthorities().size());
+        for (GrantedAuthority authority : userDetails.getAuthorities()) {
+            roles.add(authority.getAuthority());
+        }
+        return issue(userDetails.getUsername(), null, roles, now, now + jwtExpirationMs);
+    }
+
+    /**
+     * Token derivado de otro ya verificado: audiencia propia, roles acotados y expiración corta.
+     */
+    public String generateExchangedToken(String subject, String audience, Collection<String> roles,
+                                         long issuedAtMillis, long expirationMillis) {
+        if (!allowedClaims.contains("aud")) {
+            // Sin aud el token derivado no se distinguiría del original y conservaría todos sus roles
+            throw new IllegalStateException("Token exchange requires the aud claim in auth.token.claims");
+        }
+        return issue(subject, audience, roles, issuedAtMillis, expirationMillis);
     }
 
+    private String issue(String subject, String audience, Collection<String> roles, long issuedAtMillis, long expirationMillis) {
+        boolean includeRoles = allowedClaims.contains(ROLES_CLAIM);
+        boolean includeIssuedAt = allowedClaims.contains("iat");
+        if (tokenProfile == TokenProfile.COMPACT) {
+            return getTokenIssuer().issue(subject, audience, COMPACT_ROLES_CLAIM, includeRoles ? encodeRoles(roles) : null,
+                    issuedAtMillis, includeIssuedAt, expirationMillis);
+        }
+        return getTokenIssuer().issue(subject, audience, ROLES_CLAIM, includeRoles ? roles : null,
+                issuedAtMillis, includeIssuedAt, expirationMillis);
+    }
+
+    private List<Object> encodeRoles(Collection<String> roles) {
+        List<Object> encoded = new ArrayList<>(roles.size());
+        for (String role : roles) {
+            Long code = roleCodec == null ? null : roleCodec.codeOf(role);
+            encoded.add(code != null ? code : role);
+        }
+        return encoded;
+    }
+
+    /**
+     * Roles del token en cualquiera de los dos perfiles. Los códigos que esta réplica no conoce se ignoran.
+     */
+    public Set<String> extractRoles(Claims claims) {
+        Object roles = claims.get(ROLES_CLAIM);
+        if (roles == null) {
+            roles = claims.get(COMPACT_ROLES_CLAIM);
+        }
+        if (!(roles instanceof Collection<?> values)) {
+            return Set.of();
+        }
+        Set<String> names = new LinkedHashSet<>(values.size() * 2);
+        for (Object value : values) {
+            if (value instanceof Number code) {
+                String name = roleCodec == null ? null : roleCodec.nameOf(code.longValue());
+                if (name != null) {
+                    names.add(name);
+                }
+            } else {
+                names.add(String.valueOf(value));
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Los tokens con audiencia vienen de un intercambio: sus autoridades se limitan a los roles que
+     * declara el token, aunque el usuario tenga más en la base de datos.
+     */
+    public Collection<? extends GrantedAuthority> effectiveAuthorities(Claims claims, UserDetails userDetails) {
+        Set<String> audience = claims.getAudience();
+        if (audience == null || audience.isEmpty()) {
+            return userDetails.getAuthorities();
+        }
+        Set<String> tokenRoles = extractRoles(claims);
+        List<GrantedAuthority> authorities = new ArrayList<>(tokenRoles.size());
+        for (GrantedAuthority authority : userDetails.getAuthorities()) {
+            if (tokenRoles.contains(authority.getAuthority())) {
+                authorities.add(authority);
+            }
+        }
+        return authorities;
+    }
+
+    /**
+     * Solo se copian los claims adicionales presentes en {@code auth.token.claims}.
+     */
     public String generateToken(Map<String, Object> extraClaims, UserDetails userDetails) {
+        Map<String, Object> claims = new HashMap<>(extraClaims.size() * 2);
+        for (Map.Entry<String, Object> claim : extraClaims.entrySet()) {
+            if (allowedClaims.contains(claim.getKey())) {
+                claims.put(claim.getKey(), claim.getValue());
+            }
+        }
+        if (claims.isEmpty()) {
+            return generateToken(userDetails);
+        }
         return Jwts.builder()
-                .claims(extraClaims)
+                .claims(claims)
                 .subject(userDetails.getUsername())
-                .issuedAt(new Date(System.currentTimeMillis()))
+                .issuedAt(allowedClaims.contains("iat") ? new Date(System.currentTimeMillis()) : null)
                 .expiration(new Date(System.currentTimeMillis() + jwtExpirationMs))
                 .signWith(getSignInKey(), Jwts.SIG.HS256)
                 .compact();
@@ -57,18 +201,22 @@ public class JwtUtils {
         return (username.equals(userDetails.getUsername())) && !isTokenExpired(token);
     }
 
+    public boolean isTokenValid(Claims claims, UserDetails userDetails) {
+        return userDetails.getUsername().equals(claims.getSubject())
+                && claims.getExpiration() != null
+                && claims.getExpiration().getTime() > System.currentTimeMillis();
+    }
+
     private boolean isTokenExpired(String token) {
         return extractExpiration(token).before(new Date());
     }
 
-    private Date extractExpiration(String token) {
+    public Date extractExpiration(String token) {
         return extractClaim(token, Claims::getExpiration);
     }
 
-    private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSignInKey())
-                .build()
+    public Claims extractAllClaims(String token) {
+        return getParser()
                 .parseSignedClaims(token)
                 .getPayload();
     }
@@ -0,0 +1,37 @@
+package com.app.authjwt.security;
+
+import com.app.authjwt.resilience.CircuitState;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.stereotype.Component;
+
+/**
+ * Expone el circuito de búsqueda de usuarios en {@code /actuator/health} como {@code principalLookup}.
+ * Abierto o semiabierto se informa como {@code DEGRADED} (HTTP 200): la réplica sigue autenticando
+ * y no debe salir del balanceador por ello.
+ */
+@Component("principalLookup")
+@RequiredArgsConstructor
+public class PrincipalLookupHealthIndicator implements HealthIndicator {
+
+    public static final Status DEGRADED = new Status("DEGRADED", "Autenticando sin base de datos");
+
+    private final PrincipalLookupService principalLookupService;
+
+    @Override
+    public Health health() {
+        CircuitState state = principalLookupService.getState();
+        long outageMs = principalLookupService.getOutageDurationMs();
+        return Health.status(state == CircuitState.CLOSED ? Status.UP : DEGRADED)
+                .withDetail("state", state)
+                .withDetail("consecutiveFailures", principalLookupService.getConsecutiveFailures())
+                .withDetail("outageMs", outageMs)
+                .withDetail("graceRemainingMs", state == CircuitState.CLOSED
+                        ? principalLookupService.getGraceMs()
+                        : Math.max(0, principalLookupService.getGraceMs() - outageMs))
+                .withDetail("snapshots", principalLookupService.getSnapshotCount())
+                .build();
+    }
+}
@@ -0,0 +1,247 @@
+package com.app.authjwt.security;
+
+import com.app.authjwt.changelog.CacheInvalidationListener;
+import com.app.authjwt.changelog.ChangeLogEntry;
+import com.app.authjwt.resilience.CircuitBreaker;
+import com.app.authjwt.resilience.CircuitPermit;
+import com.app.authjwt.resilience.CircuitState;
+import com.app.authjwt.resilience.SingleFlight;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Búsqueda del usuario de un JWT protegida por un {@link CircuitBreaker}. Si la base de datos falla
+ * (o el circuito está abierto y no se la consulta), durante {@code auth.breaker.graceMs} desde el
+ * inicio de la caída se autentica con la última copia buena del usuario o, si no la hay, con los
+ * roles del propio token. Pasada la ventana se rechaza.
+ * <p>
+ * Las búsquedas concurrentes del mismo usuario comparten una única consulta ({@link SingleFlight}):
+ * el mismo {@link UserDetails}, ya desacoplado de la sesión, se entrega a todas las peticiones.
+ * <p>
+ * No decide si la cuenta está activa: devuelve el usuario tal cual, venga de la base de datos o de
+ * una copia, y quien autentica comprueba {@link UserDetails#isEnabled()} igual en ambos casos.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PrincipalLookupService implements CacheInvalidationListener {
+
+    private final UserDetailsService userDetailsService;
+    private final JwtUtils jwtUtils;
+    private final MeterRegistry meterRegistry;
+
+    @Autowired(required = false)
+    private RoleAuthorities roleAuthorities;
+
+    @Value("${auth.breaker.failureThreshold:5}")
+    private int failureThreshold;
+
+    @Value("${auth.breaker.openDurationMs:10000}")
+    private long openDurationMs;
+
+    @Value("${auth.breaker.halfOpenProbes:3}")
+    private int halfOpenProbes;
+
+    @Value("${auth.breaker.graceMs:300000}")
+    private long graceMs;
+
+    @Value("${auth.breaker.claimsFallback:true}")
+    private boolean claimsFallback;
+
+    // Las copias se renuevan como mucho con esta frecuencia: en régimen normal no se asigna nada por petición
+    @Value("${auth.breaker.snapshotRefreshMs:30000}")
+    private long snapshotRefreshMs;
+
+    @Value("${auth.breaker.maxSnapshots:100000}")
+    private int maxSnapshots;
+
+    // Espera máxima de quien se une a una búsqueda en curso; vencida pasa a modo degradado sin contar como fallo
+    @Value("${auth.lookup.coalesceTimeoutMs:2000}")
+    private long coalesceTimeoutMs;
+
+    private final ConcurrentHashMap<String, PrincipalSnapshot> snapshots = new ConcurrentHashMap<>();
+    private CircuitBreaker breaker;
+    private SingleFlight<String, UserDetails> lookups;
+    private Counter snapshotFallbacks;
+    private Counter claimsFallbacks;
+    private Counter rejected;
+
+    @PostConstruct
+    void init() {
+        breaker = new CircuitBreaker(failureThreshold, openDurationMs, halfOpenProbes, System::currentTimeMillis);
+        lookups = new SingleFlight<>(coalesceTimeoutMs);
+        lookupCounter("executed", SingleFlight::getExecuted);
+        lookupCounter("coalesced", SingleFlight::getCoalesced);
+        lookupCounter("timeout", SingleFlight::getTimedOut);
+        snapshotFallbacks = fallbackCounter("snapshot");
+        claimsFallbacks = fallbackCounter("claims");
+        rejected = Counter.builder("auth.breaker.rejected")
+                .description("Peticiones rechazadas por base de datos no disponible fuera de la ventana de gracia")
+                .register(meterRegistry);
+        Gauge.builder("auth.breaker.state", breaker, b -> b.getState().ordinal())
+                .description("Estado del circuito de búsqueda de usuarios (0 cerrado, 1 abierto, 2 semiabierto)")
+                .register(meterRegistry);
+    }
+
+    private void lookupCounter(String result, ToDoubleFunction<SingleFlight<String, UserDetails>> count) {
+        FunctionCounter.builder("auth.lookup.requests", lookups, count)
+                .description("Búsquedas de usuario del filtro JWT: ejecutadas contra la base de datos o unidas a una en curso")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private Counter fallbackCounter(String source) {
+        return Counter.builder("auth.breaker.degraded")
+                .description("Peticiones autenticadas en modo degradado")
+                .tag("source", source)
+                .register(meterRegistry);
+    }
+
+    public UserDetails loadUser(String username, Claims claims) {
+        CircuitPermit permit = breaker.tryAcquire();
+        if (permit == CircuitPermit.REJECTED) {
+            return degraded(username, claims, null);
+        }
+        UserDetails user;
+        try {
+            // Los que se unen a la búsqueda de otro hilo no consultaron la base de datos: devuelven su permiso sin resultado
+            user = lookups.execute(username, () -> query(username, permit), () -> breaker.release(permit));
+        } catch (DataAccessException | TransactionException e) {
+            log.warn("User lookup failed with {}, circuit is {}", e.getClass().getSimpleName(), breaker.getState());
+            return degraded(username, claims, e);
+        } catch (UsernameNotFoundException e) {
+            snapshots.remove(username);
+            throw e;
+        }
+        remember(username, user);
+        return user;
+    }
+
+    /**
+     * Solo la ejecuta el hilo que lanza la consulta compartida: el breaker cuenta una vez cada
+     * consulta real, no cada petición que espera su resultado.
+     */
+    private UserDetails query(String username, CircuitPermit permit) {
+        try {
+            UserDetails user = userDetailsService.loadUserByUsername(username);
+            breaker.onSuccess(permit);
+            return user;
+        } catch (DataAccessException | TransactionException e) {
+            breaker.onFailure(permit);
+            throw e;
+        } catch (RuntimeException e) {
+            // La base de datos respondió (usuario inexistente, etc.): no cuenta como fallo
+            breaker.onSuccess(permit);
+            throw e;
+        }
+    }
+
+    private void remember(String username, UserDetails user) {
+        long now = System.currentTimeMillis();
+        PrincipalSnapshot current = snapshots.get(username);
+        if (current != null && now - current.takenAt() < snapshotRefreshMs) {
+            return;
+        }
+        if (current == null && snapshots.size() >= maxSnapshots) {
+            return;
+        }
+        snapshots.put(username, new PrincipalSnapshot(copyOf(user), now));
+    }
+
+    private UserDetails degraded(String username, Claims claims, RuntimeException cause) {
+        if (breaker.outageDurationMs() > graceMs) {
+            rejected.increment();
+            throw new AuthenticationServiceException("User lookup unavailable and grace window exceeded", cause);
+        }
+        PrincipalSnapshot snapshot = snapshots.get(username);
+        if (snapshot != null) {
+            snapshotFallbacks.increment();
+            return snapshot.principal();
+        }
+        if (claimsFallback) {
+            claimsFallbacks.increment();
+            return fromClaims(username, claims);
+        }
+        rejected.increment();
+        throw new AuthenticationServiceException("User lookup unavailable and no snapshot for user", cause);
+    }
+
+    private UserDetails fromClaims(String username, Claims claims) {
+        List<GrantedAuthority> authorities = new ArrayList<>();
+        for (String role : jwtUtils.extractRoles(claims)) {
+            authorities.add(roleAuthorities == null ? new SimpleGrantedAuthority(role) : roleAuthorities.authorityOf(role));
+        }
+        return User.withUsername(username).password("").authorities(authorities).build();
+    }
+
+    // Sin el hash de la contraseña: la copia solo sirve para autenticar tokens
+    private static UserDetails copyOf(UserDetails user) {
+        return User.withUsername(user.getUsername())
+                .password("")
+                .authorities(user.getAuthorities())
+                .disabled(!user.isEnabled())
+                .build();
+    }
+
+    /**
+     * Una cuenta desactivada se marca en lugar de olvidarse: si la base de datos cae justo después,
+     * el modo degradado no debe volver a aceptarla a partir de los claims del token.
+     */
+    @Override
+    public void onChange(ChangeLogEntry entry) {
+        switch (entry.getChangeType()) {
+            case USER_DISABLED -> snapshots.put(entry.getEntityKey(), new PrincipalSnapshot(
+                    User.withUsername(entry.getEntityKey()).password("").authorities(List.of()).disabled(true).build(),
+                    System.currentTimeMillis()));
+            case USER_ENABLED, ROLES_CHANGED -> snapshots.remove(entry.getEntityKey());
+            default -> {
+            }
+        }
+    }
+
+    public CircuitState getState() {
+        return breaker.getState();
+    }
+
+    public int getConsecutiveFailures() {
+        return breaker.getConsecutiveFailures();
+    }
+
+    public long getOutageDurationMs() {
+        return breaker.outageDurationMs();
+    }
+
+    public long getGraceMs() {
+        return graceMs;
+    }
+
+    public int getSnapshotCount() {
+        return snapshots.size();
+    }
+
+    private record PrincipalSnapshot(UserDetails principal, long takenAt) {
+    }
+}
@@ -0,0 +1,15 @@
+package com.app.authjwt.security;
+
+import org.springframework.security.core.GrantedAuthority;
+
+/**
+ * Authorities canónicas por nombre de rol: los principales de roles conocidos comparten una única
+ * instancia por rol en lugar de crear una por usuario.
+ */
+public interface RoleAuthorities {
+
+    /**
+     * Authority compartida del rol; para un rol que aún no está en el catálogo se crea una nueva.
+     */
+    GrantedAuthority authorityOf(String roleName);
+}
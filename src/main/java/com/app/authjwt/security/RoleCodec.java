@@ -0,0 +1,18 @@
+package com.app.authjwt.security;
+
+/**
+ * Traducción entre nombres de rol y los códigos numéricos del perfil {@link TokenProfile#COMPACT}.
+ * Los códigos deben ser estables entre réplicas y reinicios.
+ */
+public interface RoleCodec {
+
+    /**
+     * Código del rol o {@code null} si no tiene; en ese caso el token lleva el nombre.
+     */
+    Long codeOf(String roleName);
+
+    /**
+     * Nombre del rol o {@code null} si el código no se conoce.
+     */
+    String nameOf(long code);
+}
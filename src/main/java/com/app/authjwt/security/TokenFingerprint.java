@@ -0,0 +1,39 @@
+package com.app.authjwt.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Huella corta y estable de un token: los primeros 16 bytes de su SHA-256 en base64url.
+ * Permite referirse a un token (ETag, logs, revocaciones) sin exponerlo.
+ */
+public final class TokenFingerprint {
+
+    private static final int LENGTH_BYTES = 16;
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private TokenFingerprint() {
+    }
+
+    public static String of(String token) {
+        return ENCODER.encodeToString(Arrays.copyOf(digest(token), LENGTH_BYTES));
+    }
+
+    /**
+     * SHA-256 completo en base64url. Es la clave con la que se guarda un token que no debe conservarse en claro.
+     */
+    public static String sha256(String token) {
+        return ENCODER.encodeToString(digest(token));
+    }
+
+    private static byte[] digest(String token) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.app.authjwt.security;
+
+/**
+ * Formato de los tokens emitidos. Ambos se aceptan siempre al validar, así que cambiar de perfil
+ * no invalida los tokens ya emitidos.
+ */
+public enum TokenProfile {
+    /** Claim {@code roles} con los nombres de rol. */
+    STANDARD,
+    /** Claim {@code r} con códigos numéricos de rol ({@link RoleCodec}). */
+    COMPACT
+}
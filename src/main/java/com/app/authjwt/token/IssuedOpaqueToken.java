@@ -0,0 +1,14 @@
+package com.app.authjwt.token;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Resultado de emitir un token opaco: el token en claro, que solo se entrega al cliente, y la entrada guardada.
+ */
+@Getter
+@AllArgsConstructor
+public class IssuedOpaqueToken {
+    private final String token;
+    private final OpaqueTokenEntry entry;
+}
@@ -0,0 +1,22 @@
+package com.app.authjwt.token;
+
+import com.app.authjwt.security.TokenFingerprint;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.security.core.userdetails.UserDetails;
+
+/**
+ * Token opaco vigente. Solo se guarda el SHA-256 del token ({@link TokenFingerprint#sha256}), nunca el token en claro.
+ */
+@Getter
+@AllArgsConstructor
+public class OpaqueTokenEntry {
+    private final String tokenHash;
+    private final UserDetails principal;
+    private final long issuedAt;
+    private final long expiresAt;
+
+    public boolean isExpired(long now) {
+        return expiresAt <= now;
+    }
+}
@@ -0,0 +1,332 @@
+package com.app.authjwt.token;
+
+import com.app.authjwt.changelog.CacheInvalidationListener;
+import com.app.authjwt.changelog.ChangeLogEntry;
+import com.app.authjwt.changelog.ChangeType;
+import com.app.authjwt.security.RoleAuthorities;
+import com.app.authjwt.security.TokenFingerprint;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.nio.file.*;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Almacén en memoria de tokens opacos. Las búsquedas son un único {@code get} sobre el
+ * {@link ConcurrentHashMap} del shard; cada shard mantiene además una cola ordenada por expiración
+ * (protegida por su propio lock) para desalojar tokens caducados o, si se supera la capacidad,
+ * los que antes iban a caducar. Opcionalmente se vuelca a disco al parar y se recarga al arrancar.
+ * <p>
+ * Los tokens se indexan por su SHA-256: ni la memoria ni la instantánea en disco contienen un token usable.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OpaqueTokenStore implements CacheInvalidationListener {
+
+    private static final int TOKEN_BYTES = 32;
+    // El formato 1 guardaba los tokens en claro; se ignora al arrancar
+    private static final int SNAPSHOT_MAGIC = 0x4F544B32;
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private final MeterRegistry meterRegistry;
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    @Autowired(required = false)
+    private RoleAuthorities roleAuthorities;
+
+    @Value("${auth.opaque.shards:16}")
+    private int shardCount;
+
+    @Value("${auth.opaque.maxEntries:1000000}")
+    private int maxEntries;
+
+    @Value("${auth.opaque.expirationMs:${auth.app.jwtExpirationMs:86400000}}")
+    private long expirationMs;
+
+    @Value("${auth.opaque.snapshotPath:}")
+    private String snapshotPath;
+
+    private Shard[] shards;
+    private int maxEntriesPerShard;
+
+    /**
+     * Los JWT siempre tienen tres segmentos separados por puntos; los tokens opacos no tienen ninguno.
+     */
+    public static boolean isOpaqueToken(String token) {
+        return token.indexOf('.') < 0;
+    }
+
+    @PostConstruct
+    void init() {
+        int count = Integer.highestOneBit(Math.max(1, shardCount - 1) << 1);
+        shards = new Shard[count];
+        for (int i = 0; i < count; i++) {
+            shards[i] = new Shard();
+        }
+        maxEntriesPerShard = Math.max(1, maxEntries / count);
+        Gauge.builder("auth.opaque.tokens", this, OpaqueTokenStore::size)
+                .description("Tokens opacos vigentes en memoria")
+                .register(meterRegistry);
+        loadSnapshot();
+    }
+
+    public IssuedOpaqueToken issue(UserDetails user) {
+        byte[] random = new byte[TOKEN_BYTES];
+        secureRandom.nextBytes(random);
+        long now = System.currentTimeMillis();
+        UserDetails principal = User.withUsername(user.getUsername())
+                .password("")
+                .authorities(user.getAuthorities())
+                .disabled(!user.isEnabled())
+                .build();
+        String token = ENCODER.encodeToString(random);
+        OpaqueTokenEntry entry = new OpaqueTokenEntry(TokenFingerprint.sha256(token), principal, now, now + expirationMs);
+        shardFor(entry.getTokenHash()).put(entry, maxEntriesPerShard);
+        return new IssuedOpaqueToken(token, entry);
+    }
+
+    /**
+     * Devuelve la entrada vigente del token o {@code null} si no existe, fue revocado o ha caducado.
+     */
+    public OpaqueTokenEntry resolve(String token) {
+        String tokenHash = TokenFingerprint.sha256(token);
+        OpaqueTokenEntry entry = shardFor(tokenHash).tokens.get(tokenHash);
+        if (entry == null || entry.isExpired(System.currentTimeMillis())) {
+            return null;
+        }
+        return entry;
+    }
+
+    public boolean revoke(String token) {
+        String tokenHash = TokenFingerprint.sha256(token);
+        return shardFor(tokenHash).remove(tokenHash);
+    }
+
+    /**
+     * Revoca todos los tokens de un usuario. Recorre todos los shards: pensado para cambios de cuenta, no para cada petición.
+     */
+    public int revokeAll(String username) {
+        int revoked = 0;
+        for (Shard shard : shards) {
+            revoked += shard.removeAll(username);
+        }
+        return revoked;
+    }
+
+    /**
+     * El principal se copia al emitir el token: si la cuenta se desactiva o cambian sus roles en
+     * cualquier nodo, los tokens ya emitidos dejan de ser válidos.
+     */
+    @Override
+    public void onChange(ChangeLogEntry entry) {
+        if (entry.getChangeType() == ChangeType.USER_DISABLED || entry.getChangeType() == ChangeType.ROLES_CHANGED) {
+            int revoked = revokeAll(entry.getEntityKey());
+            if (revoked > 0) {
+                log.debug("Revoked {} opaque tokens of {} after {}", revoked, entry.getEntityKey(), entry.getChangeType());
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Shard shard : shards) {
+            size += shard.tokens.size();
+        }
+        return size;
+    }
+
+    @Scheduled(fixedDelayString = "${auth.opaque.evictionIntervalMs:30000}")
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        for (Shard shard : shards) {
+            shard.evictExpired(now);
+        }
+    }
+
+    private Shard shardFor(String tokenHash) {
+        int hash = tokenHash.hashCode();
+        return shards[(hash ^ (hash >>> 16)) & (shards.length - 1)];
+    }
+
+    @PreDestroy
+    void writeSnapshot() {
+        if (snapshotPath.isBlank()) {
+            return;
+        }
+        Path target = Path.of(snapshotPath);
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        long now = System.currentTimeMillis();
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                restrictPermissions(temp);
+                out.writeInt(SNAPSHOT_MAGIC);
+                for (Shard shard : shards) {
+                    for (OpaqueTokenEntry entry : shard.tokens.values()) {
+                        if (!entry.isExpired(now)) {
+                            out.writeBoolean(true);
+                            writeEntry(out, entry);
+                        }
+                    }
+                }
+                out.writeBoolean(false);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Opaque token snapshot written to {}", target);
+        } catch (IOException e) {
+            log.warn("Could not write opaque token snapshot to {}: {}", target, e.getMessage());
+        }
+    }
+
+    private void loadSnapshot() {
+        if (snapshotPath.isBlank() || !Files.exists(Path.of(snapshotPath))) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        int loaded = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(Path.of(snapshotPath))))) {
+            if (in.readInt() != SNAPSHOT_MAGIC) {
+                log.warn("Ignoring opaque token snapshot {}: unknown format", snapshotPath);
+                return;
+            }
+            while (in.readBoolean()) {
+                OpaqueTokenEntry entry = readEntry(in);
+                if (!entry.isExpired(now)) {
+                    shardFor(entry.getTokenHash()).put(entry, maxEntriesPerShard);
+                    loaded++;
+                }
+            }
+            log.info("Loaded {} opaque tokens from {}", loaded, snapshotPath);
+        } catch (IOException e) {
+            log.warn("Could not read opaque token snapshot {}: {}", snapshotPath, e.getMessage());
+        }
+    }
+
+    private static void writeEntry(DataOutputStream out, OpaqueTokenEntry entry) throws IOException {
+        UserDetails principal = entry.getPrincipal();
+        out.writeUTF(entry.getTokenHash());
+        out.writeUTF(principal.getUsername());
+        out.writeBoolean(principal.isEnabled());
+        out.writeLong(entry.getIssuedAt());
+        out.writeLong(entry.getExpiresAt());
+        out.writeShort(principal.getAuthorities().size());
+        for (GrantedAuthority authority : principal.getAuthorities()) {
+            out.writeUTF(authority.getAuthority());
+        }
+    }
+
+    private OpaqueTokenEntry readEntry(DataInputStream in) throws IOException {
+        String tokenHash = in.readUTF();
+        String username = in.readUTF();
+        boolean enabled = in.readBoolean();
+        long issuedAt = in.readLong();
+        long expiresAt = in.readLong();
+        int authorityCount = in.readUnsignedShort();
+        List<GrantedAuthority> authorities = new ArrayList<>(authorityCount);
+        for (int i = 0; i < authorityCount; i++) {
+            String role = in.readUTF();
+            authorities.add(roleAuthorities == null ? new SimpleGrantedAuthority(role) : roleAuthorities.authorityOf(role));
+        }
+        UserDetails principal = User.withUsername(username)
+                .password("")
+                .authorities(authorities)
+                .disabled(!enabled)
+                .build();
+        return new OpaqueTokenEntry(tokenHash, principal, issuedAt, expiresAt);
+    }
+
+    private static void restrictPermissions(Path path) throws IOException {
+        try {
+            Files.setPosixFilePermissions(path, PosixFilePermissions.fromString("rw-------"));
+        } catch (UnsupportedOperationException e) {
+            // Sistema de ficheros sin permisos POSIX
+        }
+    }
+
+    private static final class Shard {
+        private final ConcurrentHashMap<String, OpaqueTokenEntry> tokens = new ConcurrentHashMap<>();
+        private final PriorityQueue<OpaqueTokenEntry> byExpiry =
+                new PriorityQueue<>(Comparator.comparingLong(OpaqueTokenEntry::getExpiresAt));
+        private final ReentrantLock lock = new ReentrantLock();
+
+        void put(OpaqueTokenEntry entry, int maxEntries) {
+            lock.lock();
+            try {
+                tokens.put(entry.getTokenHash(), entry);
+                byExpiry.add(entry);
+                // Por capacidad se desaloja primero lo que antes iba a caducar
+                while (tokens.size() > maxEntries && !byExpiry.isEmpty()) {
+                    OpaqueTokenEntry evicted = byExpiry.poll();
+                    tokens.remove(evicted.getTokenHash(), evicted);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Quita el token del mapa y de la cola: si quedara en la cola seguiría ocupando memoria hasta
+         * su expiración y la capacidad del shard dejaría de acotarla. La búsqueda en la cola es lineal,
+         * aceptable porque revocar es mucho menos frecuente que emitir o resolver.
+         */
+        boolean remove(String tokenHash) {
+            lock.lock();
+            try {
+                OpaqueTokenEntry removed = tokens.remove(tokenHash);
+                if (removed == null) {
+                    return false;
+                }
+                byExpiry.remove(removed);
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        int removeAll(String username) {
+            lock.lock();
+            try {
+                int before = tokens.size();
+                byExpiry.removeIf(entry -> entry.getPrincipal().getUsername().equals(username)
+                        && tokens.remove(entry.getTokenHash(), entry));
+                return before - tokens.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void evictExpired(long now) {
+            lock.lock();
+            try {
+                OpaqueTokenEntry head;
+                while ((head = byExpiry.peek()) != null && (head.isExpired(now) || tokens.get(head.getTokenHash()) != head)) {
+                    byExpiry.poll();
+                    tokens.remove(head.getTokenHash(), head);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.app.authjwt.token;
+
+public enum TokenMode {
+    /** JWT autocontenido firmado con HS256. */
+    JWT,
+    /** Token opaco aleatorio resuelto contra {@link OpaqueTokenStore}. */
+    OPAQUE
+}
@@ -0,0 +1,126 @@
+package com.app.authjwt.warmup;
+
+import com.app.authjwt.User.Model.Role;
+import com.app.authjwt.User.Model.User;
+import com.app.authjwt.User.Repository.UserRepository;
+import com.app.authjwt.dto.payload.response.AuthResponse;
+import com.app.authjwt.dto.payload.response.TokenValidationResponseTemplate;
+import com.app.authjwt.security.JwtUtils;
+import com.app.authjwt.security.TokenFingerprint;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Calienta el JIT antes de aceptar tráfico: firma y parsea tokens sintéticos, serializa claims con
+ * Jackson, ejecuta BCrypt y la búsqueda de login con un principal en memoria. Corre como
+ * {@link ApplicationRunner}, así que Spring Boot no publica {@code ACCEPTING_TRAFFIC} (readiness UP)
+ * hasta que termina.
+ */
+@Slf4j
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class WarmupRunner implements ApplicationRunner {
+
+    private static final String WARMUP_PASSWORD = "warmup-password";
+
+    private final JwtUtils jwtUtils;
+    private final PasswordEncoder passwordEncoder;
+    private final UserRepository userRepository;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${auth.warmup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${auth.warmup.iterations:10000}")
+    private int iterations;
+
+    @Value("${auth.warmup.maxDurationMs:15000}")
+    private long maxDurationMs;
+
+    // BCrypt y la base de datos son caros: se ejercitan en menos iteraciones
+    @Value("${auth.warmup.passwordIterations:10}")
+    private int passwordIterations;
+
+    @Value("${auth.warmup.queryIterations:200}")
+    private int queryIterations;
+
+    private volatile long durationMs;
+    private volatile int completedIterations;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        TimeGauge.builder("auth.warmup.duration", this, TimeUnit.MILLISECONDS, runner -> runner.durationMs)
+                .description("Duración de la fase de calentamiento previa a readiness")
+                .register(meterRegistry);
+        Gauge.builder("auth.warmup.iterations", this, runner -> runner.completedIterations)
+                .description("Iteraciones completadas durante el calentamiento")
+                .register(meterRegistry);
+        if (!enabled) {
+            return;
+        }
+
+        AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.REFUSING_TRAFFIC);
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(maxDurationMs);
+
+        User principal = User.builder()
+                .username("warmup-user")
+                .email("warmup@localhost")
+                .password(passwordEncoder.encode(WARMUP_PASSWORD))
+                .roles(Set.of(Role.builder().id(0L).name("ROLE_USER").build()))
+                .build();
+
+        int i = 0;
+        try {
+            for (; i < iterations && System.nanoTime() < deadline; i++) {
+                exerciseTokens(principal);
+                if (i < passwordIterations) {
+                    passwordEncoder.matches(WARMUP_PASSWORD, principal.getPassword());
+                }
+                if (i < queryIterations) {
+                    userRepository.findByLoginIdentifier("warmup-" + i);
+                }
+            }
+        } catch (RuntimeException | JsonProcessingException e) {
+            // El calentamiento es best-effort: nunca debe impedir que el servicio arranque
+            log.warn("JIT warm-up aborted after {} iterations: {}", i, e.getMessage());
+        }
+
+        completedIterations = i;
+        durationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        log.info("JIT warm-up completed: {} iterations in {} ms", completedIterations, durationMs);
+    }
+
+    private void exerciseTokens(User principal) throws JsonProcessingException {
+        String token = jwtUtils.generateToken(principal);
+        if (!jwtUtils.isTokenValid(token, principal)) {
+            throw new IllegalStateException("Warm-up token did not validate");
+        }
+        objectMapper.writeValueAsBytes(jwtUtils.extractAllClaims(token));
+        objectMapper.writeValueAsBytes(AuthResponse.builder().token(token).build());
+        TokenValidationResponseTemplate.render(principal.getUsername(), Instant.now(),
+                principal.getAuthorities(), TokenFingerprint.of(token));
+    }
+}
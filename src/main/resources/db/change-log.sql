@@ -0,0 +1,11 @@
+-- Migración manual (MySQL) para entornos sin ddl-auto: registro de cambios sondeado por todas las réplicas.
+
+CREATE TABLE auth_change_log (
+    id          BIGINT      NOT NULL AUTO_INCREMENT,
+    change_type VARCHAR(32) NOT NULL,
+    entity_key  VARCHAR(50) NOT NULL,
+    created_at  DATETIME(6) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_auth_change_log_created_at ON auth_change_log (created_at);
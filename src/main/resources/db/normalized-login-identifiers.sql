@@ -0,0 +1,15 @@
+-- Migración manual (MySQL) para entornos sin ddl-auto: columnas normalizadas de login con índices únicos.
+-- LoginIdentifierBackfill rellena las filas existentes al arrancar; el UPDATE se incluye para aplicarlo a mano.
+
+ALTER TABLE users
+    ADD COLUMN username_normalized VARCHAR(20) NULL,
+    ADD COLUMN email_normalized VARCHAR(50) NULL;
+
+UPDATE users
+SET username_normalized = LOWER(TRIM(username)),
+    email_normalized    = LOWER(TRIM(email))
+WHERE username_normalized IS NULL
+   OR email_normalized IS NULL;
+
+CREATE UNIQUE INDEX uk_users_username_normalized ON users (username_normalized);
+CREATE UNIQUE INDEX uk_users_email_normalized ON users (email_normalized);
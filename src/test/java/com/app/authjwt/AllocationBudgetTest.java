@@ -0,0 +1,183 @@
+package com.app.authjwt;
+
+import com.app.authjwt.User.Model.Role;
+import com.app.authjwt.User.Model.User;
+import com.app.authjwt.User.Repository.UserRepository;
+import com.app.authjwt.User.service.RoleRegistry;
+import com.app.authjwt.audit.AuthAuditService;
+import com.app.authjwt.auth.AuthService;
+import com.app.authjwt.changelog.ChangeLogService;
+import com.app.authjwt.dto.payload.request.LoginRequest;
+import com.app.authjwt.security.JwtAuthenticationFilter;
+import com.app.authjwt.security.JwtUtils;
+import com.app.authjwt.security.PrincipalLookupService;
+import com.app.authjwt.token.OpaqueTokenStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.util.Properties;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Mide los bytes asignados por operación en la ruta de autenticación y falla si superan el presupuesto
+ * de {@code allocation-budgets.properties}. Se usan dobles sin Mockito en las rutas medidas para no
+ * contar la asignación del propio framework de mocks.
+ */
+class AllocationBudgetTest {
+
+    private static final int WARMUP_ITERATIONS = 5_000;
+    private static final int MEASURED_ITERATIONS = 2_000;
+    private static final String SECRET = "b5f3860a89d08d3db83258a0509186d527b38ad627852a79";
+
+    private static com.sun.management.ThreadMXBean threadMXBean;
+    private static Properties budgets;
+
+    private JwtUtils jwtUtils;
+    private User user;
+    private String token;
+
+    @BeforeAll
+    static void loadBudgets() throws IOException {
+        threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        budgets = new Properties();
+        try (InputStream in = AllocationBudgetTest.class.getResourceAsStream("/allocation-budgets.properties")) {
+            budgets.load(in);
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        assumeTrue(threadMXBean.isThreadAllocatedMemorySupported(), "Thread allocation counters not supported");
+        threadMXBean.setThreadAllocatedMemoryEnabled(true);
+
+        jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 3600000L);
+
+        user = User.builder()
+                .id(1L)
+                .username("testuser")
+                .email("testuser@example.com")
+                .password("encoded")
+                .roles(Set.of(Role.builder().id(1L).name("ROLE_USER").build()))
+                .build();
+        token = jwtUtils.generateToken(user);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void jwtVerification_ShouldStayWithinBudget() {
+        long bytes = bytesPerOperation(() -> jwtUtils.isTokenValid(jwtUtils.extractAllClaims(token), user));
+
+        assertWithinBudget("jwt.verify", bytes);
+    }
+
+    @Test
+    void filterAuthenticatedRequest_ShouldStayWithinBudget() {
+        JwtAuthenticationFilter filter = new JwtAuthenticationFilter(jwtUtils, principalLookupService(), disabledAuditService(),
+                mock(OpaqueTokenStore.class));
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/auth/v1/rest/validate");
+        request.addHeader("Authorization", "Bearer " + token);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        FilterChain chain = (req, res) -> { };
+
+        long bytes = bytesPerOperation(() -> {
+            try {
+                filter.doFilter(request, response, chain);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            assertAuthenticated();
+            SecurityContextHolder.clearContext();
+        });
+
+        assertWithinBudget("filter.authenticatedRequest", bytes);
+    }
+
+    @Test
+    void login_ShouldStayWithinBudget() {
+        UsernamePasswordAuthenticationToken authenticated =
+                UsernamePasswordAuthenticationToken.authenticated(user, null, user.getAuthorities());
+        AuthService authService = new AuthService(
+                mock(UserRepository.class),
+                mock(RoleRegistry.class),
+                mock(PasswordEncoder.class),
+                jwtUtils,
+                authentication -> authenticated,
+                disabledAuditService(),
+                mock(OpaqueTokenStore.class),
+                mock(ChangeLogService.class));
+        LoginRequest request = new LoginRequest("testuser", "password");
+
+        long bytes = bytesPerOperation(() -> {
+            authService.login(request, "127.0.0.1");
+            SecurityContextHolder.clearContext();
+        });
+
+        assertWithinBudget("auth.login", bytes);
+    }
+
+    private static AuthAuditService disabledAuditService() {
+        // Sin @Value procesado auth.audit.enabled queda en false y record() no hace nada
+        return new AuthAuditService(null, new SimpleMeterRegistry());
+    }
+
+    private PrincipalLookupService principalLookupService() {
+        PrincipalLookupService lookup = new PrincipalLookupService(username -> user, jwtUtils, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(lookup, "failureThreshold", 5);
+        ReflectionTestUtils.setField(lookup, "openDurationMs", 10_000L);
+        ReflectionTestUtils.setField(lookup, "halfOpenProbes", 3);
+        ReflectionTestUtils.setField(lookup, "snapshotRefreshMs", 30_000L);
+        ReflectionTestUtils.setField(lookup, "maxSnapshots", 100);
+        ReflectionTestUtils.setField(lookup, "coalesceTimeoutMs", 2_000L);
+        ReflectionTestUtils.invokeMethod(lookup, "init");
+        return lookup;
+    }
+
+    private static void assertAuthenticated() {
+        if (SecurityContextHolder.getContext().getAuthentication() == null) {
+            throw new IllegalStateException("Request was not authenticated");
+        }
+    }
+
+    private static long bytesPerOperation(Runnable operation) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            operation.run();
+        }
+        long before = threadMXBean.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            operation.run();
+        }
+        long after = threadMXBean.getCurrentThreadAllocatedBytes();
+        return (after - before) / MEASURED_ITERATIONS;
+    }
+
+    private static void assertWithinBudget(String key, long bytesPerOperation) {
+        String budget = budgets.getProperty(key);
+        assertThat(budget).as("Missing allocation budget for %s", key).isNotNull();
+        assertThat(bytesPerOperation)
+                .as("%s allocates %d bytes/op, budget is %s", key, bytesPerOperation, budget)
+                .isLessThanOrEqualTo(Long.parseLong(budget.trim()));
+    }
+}
@@ -2,13 +2,19 @@ package com.app.authjwt;
 
 import com.app.authjwt.User.Model.Role;
 import com.app.authjwt.User.Model.User;
-import com.app.authjwt.User.Repository.RoleRepository;
 import com.app.authjwt.User.Repository.UserRepository;
+import com.app.authjwt.User.service.RoleRegistry;
+import com.app.authjwt.audit.AuthAuditEventType;
+import com.app.authjwt.audit.AuthAuditService;
 import com.app.authjwt.auth.AuthService;
+import com.app.authjwt.changelog.ChangeLogService;
+import com.app.authjwt.changelog.ChangeType;
 import com.app.authjwt.dto.payload.request.LoginRequest;
 import com.app.authjwt.dto.payload.request.RegisterRequest;
 import com.app.authjwt.dto.payload.response.AuthResponse;
 import com.app.authjwt.security.JwtUtils;
+import com.app.authjwt.security.TokenFingerprint;
+import com.app.authjwt.token.OpaqueTokenStore;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -36,10 +42,13 @@ import static org.mockito.Mockito.*;
 class AuthServiceTest {
 
     @Mock private UserRepository userRepository;
-    @Mock private RoleRepository roleRepository;
+    @Mock private RoleRegistry roleRegistry;
     @Mock private PasswordEncoder passwordEncoder;
     @Mock private JwtUtils jwtService;
     @Mock private AuthenticationManager authenticationManager;
+    @Mock private AuthAuditService auditService;
+    @Mock private OpaqueTokenStore opaqueTokenStore;
+    @Mock private ChangeLogService changeLogService;
     @Mock private Authentication authentication;
     @Mock private SecurityContext securityContext;
 
@@ -75,12 +84,13 @@ class AuthServiceTest {
         
 
         
-        AuthResponse response = authService.login(request);
+        AuthResponse response = authService.login(request, "10.0.0.7");
 
         
         assertThat(response).isNotNull();
         assertThat(response.getToken()).isEqualTo("jwt-token-valido");
         verify(authenticationManager).authenticate(any());
+        verify(auditService).record(AuthAuditEventType.SIGNIN_SUCCESS, mockUser.getUsername(), "10.0.0.7", null);
     }
 
     @Test
@@ -92,17 +102,18 @@ class AuthServiceTest {
         User mockSavedUser = User.builder().username("newUser").roles(Collections.singleton(mockRole)).build();
 
         
-        when(userRepository.existsByUsername(request.getUsername())).thenReturn(false);
-        when(roleRepository.findByName("ROLE_USER")).thenReturn(Optional.of(mockRole));
+        when(userRepository.existsByUsernameNormalized("newuser")).thenReturn(false);
+        when(roleRegistry.findByName("ROLE_USER")).thenReturn(Optional.of(mockRole));
         when(passwordEncoder.encode(request.getPassword())).thenReturn("encodedPass");
         when(jwtService.generateToken(any(User.class))).thenReturn("jwt-token-nuevo");
 
         
-        AuthResponse response = authService.register(request);
+        AuthResponse response = authService.register(request, "10.0.0.7");
 
         
         assertThat(response.getToken()).isEqualTo("jwt-token-nuevo");
         verify(userRepository).save(any(User.class)); 
+        verify(auditService).record(AuthAuditEventType.SIGNUP, "newUser", "10.0.0.7", null);
     }
 
     @Test
@@ -111,14 +122,45 @@ class AuthServiceTest {
         
         RegisterRequest request = new RegisterRequest("existingUser", "email@test.com", "pass");
 
-        when(userRepository.existsByUsername(request.getUsername())).thenReturn(true);
+        when(userRepository.existsByUsernameNormalized("existinguser")).thenReturn(true);
 
         
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
-            authService.register(request);
+            authService.register(request, "10.0.0.7");
         });
 
         assertThat(exception.getMessage()).contains("Username is already taken");
         verify(userRepository, never()).save(any()); 
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Register: Debería rechazar usernames con '@' para no confundirlos con un email")
+    void register_ShouldThrowException_WhenUsernameLooksLikeEmail() {
+        RegisterRequest request = new RegisterRequest("juan@perez", "email@test.com", "pass");
+
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> authService.register(request, "10.0.0.7"));
+
+        assertThat(exception.getMessage()).contains("cannot contain '@'");
+        verify(userRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Revoke: Debería publicar la huella del token revocado, nunca el token")
+    void revokeToken_ShouldRecordFingerprintInChangeLog() {
+        when(opaqueTokenStore.revoke("opaque-token")).thenReturn(true);
+
+        assertThat(authService.revokeToken("opaque-token")).isTrue();
+
+        verify(changeLogService).record(ChangeType.TOKEN_REVOKED, TokenFingerprint.of("opaque-token"));
+    }
+
+    @Test
+    @DisplayName("Revoke: No debería registrar nada si el token no existía")
+    void revokeToken_ShouldNotRecord_WhenTokenUnknown() {
+        when(opaqueTokenStore.revoke("unknown-token")).thenReturn(false);
+
+        assertThat(authService.revokeToken("unknown-token")).isFalse();
+
+        verifyNoInteractions(changeLogService);
+    }
+}
@@ -0,0 +1,83 @@
+package com.app.authjwt;
+
+import com.app.authjwt.resilience.CircuitBreaker;
+import com.app.authjwt.resilience.CircuitPermit;
+import com.app.authjwt.resilience.CircuitState;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CircuitBreakerTest {
+
+    private final AtomicLong clock = new AtomicLong(1_000);
+    private final CircuitBreaker breaker = new CircuitBreaker(3, 10_000, 2, clock::get);
+
+    private void fail(int times) {
+        for (int i = 0; i < times; i++) {
+            breaker.onFailure(breaker.tryAcquire());
+        }
+    }
+
+    @Test
+    void shouldOpenAfterConsecutiveFailuresOnly() {
+        fail(2);
+        breaker.onSuccess(breaker.tryAcquire());
+        fail(2);
+        assertThat(breaker.getState()).isEqualTo(CircuitState.CLOSED);
+
+        fail(1);
+
+        assertThat(breaker.getState()).isEqualTo(CircuitState.OPEN);
+        assertThat(breaker.tryAcquire()).isEqualTo(CircuitPermit.REJECTED);
+    }
+
+    @Test
+    void halfOpen_ShouldLimitProbesAndCloseAfterSuccessfulProbes() {
+        fail(3);
+        clock.addAndGet(10_000);
+
+        CircuitPermit first = breaker.tryAcquire();
+        CircuitPermit second = breaker.tryAcquire();
+        assertThat(first).isEqualTo(CircuitPermit.PROBE);
+        assertThat(second).isEqualTo(CircuitPermit.PROBE);
+        assertThat(breaker.tryAcquire()).isEqualTo(CircuitPermit.REJECTED);
+        assertThat(breaker.getState()).isEqualTo(CircuitState.HALF_OPEN);
+
+        breaker.onSuccess(first);
+        breaker.onSuccess(second);
+
+        assertThat(breaker.getState()).isEqualTo(CircuitState.CLOSED);
+        assertThat(breaker.outageDurationMs()).isZero();
+        assertThat(breaker.tryAcquire()).isEqualTo(CircuitPermit.CALL);
+    }
+
+    @Test
+    void failedProbe_ShouldReopenAndKeepOutageStart() {
+        fail(3);
+        clock.addAndGet(10_000);
+
+        breaker.onFailure(breaker.tryAcquire());
+
+        assertThat(breaker.getState()).isEqualTo(CircuitState.OPEN);
+        assertThat(breaker.outageDurationMs()).isEqualTo(10_000);
+        clock.addAndGet(5_000);
+        assertThat(breaker.tryAcquire()).isEqualTo(CircuitPermit.REJECTED);
+    }
+
+    @Test
+    void releasedProbe_ShouldFreeItsSlotWithoutCounting() {
+        fail(3);
+        clock.addAndGet(10_000);
+        CircuitPermit probe = breaker.tryAcquire();
+        CircuitPermit released = breaker.tryAcquire();
+
+        breaker.release(released);
+
+        assertThat(breaker.getState()).isEqualTo(CircuitState.HALF_OPEN);
+        assertThat(breaker.tryAcquire()).isEqualTo(CircuitPermit.PROBE);
+        breaker.onSuccess(probe);
+        assertThat(breaker.getState()).isEqualTo(CircuitState.HALF_OPEN);
+    }
+}
@@ -0,0 +1,69 @@
+package com.app.authjwt;
+
+import com.app.authjwt.security.Hs256TokenIssuer;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.SecretKey;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class Hs256TokenIssuerTest {
+
+    private SecretKey key;
+    private Hs256TokenIssuer issuer;
+
+    @BeforeEach
+    void setUp() {
+        key = Keys.hmacShaKeyFor(Decoders.BASE64.decode("b5f3860a89d08d3db83258a0509186d527b38ad627852a79"));
+        issuer = new Hs256TokenIssuer(key.getEncoded());
+    }
+
+    @Test
+    void issue_ShouldProduceTokenVerifiableByJjwtParser() {
+        long now = System.currentTimeMillis();
+        String token = issuer.issue("testuser", now, now + 3_600_000L);
+
+        Claims claims = Jwts.parser().verifyWith(key).build().parseSignedClaims(token).getPayload();
+
+        assertThat(claims.getSubject()).isEqualTo("testuser");
+        assertThat(claims.getIssuedAt()).isEqualTo(new Date(now / 1000 * 1000));
+        assertThat(claims.getExpiration()).isEqualTo(new Date((now + 3_600_000L) / 1000 * 1000));
+    }
+
+    @Test
+    void issue_ShouldEscapeSubject() {
+        long now = System.currentTimeMillis();
+        String subject = "quote\"back\\slash\ttab\u0001ñ";
+        String token = issuer.issue(subject, now, now + 60_000L);
+
+        String parsed = Jwts.parser().verifyWith(key).build().parseSignedClaims(token).getPayload().getSubject();
+
+        assertThat(parsed).isEqualTo(subject);
+    }
+
+    @Test
+    void issue_ShouldCarrySameClaimsAsJjwtBuilder() {
+        // Segundos exactos: los claims de fecha se serializan sin milisegundos
+        long now = System.currentTimeMillis() / 1000 * 1000;
+        String expected = Jwts.builder()
+                .subject("testuser")
+                .issuedAt(new Date(now))
+                .expiration(new Date(now + 60_000L))
+                .signWith(key, Jwts.SIG.HS256)
+                .compact();
+
+        String token = issuer.issue("testuser", now, now + 60_000L);
+
+        Claims fromIssuer = Jwts.parser().verifyWith(key).build().parseSignedClaims(token).getPayload();
+        Claims fromBuilder = Jwts.parser().verifyWith(key).build().parseSignedClaims(expected).getPayload();
+        assertThat(fromIssuer.getSubject()).isEqualTo(fromBuilder.getSubject());
+        assertThat(fromIssuer.getIssuedAt()).isEqualTo(fromBuilder.getIssuedAt());
+        assertThat(fromIssuer.getExpiration()).isEqualTo(fromBuilder.getExpiration());
+    }
+}
@@ -0,0 +1,124 @@
+package com.app.authjwt;
+
+import com.app.authjwt.audit.AuthAuditService;
+import com.app.authjwt.changelog.ChangeLogEntry;
+import com.app.authjwt.changelog.ChangeType;
+import com.app.authjwt.security.JwtAuthenticationFilter;
+import com.app.authjwt.security.JwtUtils;
+import com.app.authjwt.security.PrincipalLookupService;
+import com.app.authjwt.token.OpaqueTokenStore;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class JwtAuthenticationFilterTest {
+
+    private static final String SECRET = "b5f3860a89d08d3db83258a0509186d527b38ad627852a79";
+
+    private JwtUtils jwtUtils;
+    private UserDetails storedUser;
+    private boolean databaseDown;
+    private PrincipalLookupService lookup;
+    private JwtAuthenticationFilter filter;
+    private String token;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 3_600_000L);
+        storedUser = new User("alice", "hash", List.of(new SimpleGrantedAuthority("ROLE_USER")));
+        token = jwtUtils.generateToken(storedUser);
+
+        lookup = new PrincipalLookupService(username -> {
+            if (databaseDown) {
+                throw new QueryTimeoutException("timeout");
+            }
+            return storedUser;
+        }, jwtUtils, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(lookup, "failureThreshold", 5);
+        ReflectionTestUtils.setField(lookup, "openDurationMs", 10_000L);
+        ReflectionTestUtils.setField(lookup, "halfOpenProbes", 1);
+        ReflectionTestUtils.setField(lookup, "graceMs", 300_000L);
+        ReflectionTestUtils.setField(lookup, "snapshotRefreshMs", 30_000L);
+        ReflectionTestUtils.setField(lookup, "maxSnapshots", 100);
+        ReflectionTestUtils.setField(lookup, "coalesceTimeoutMs", 2_000L);
+        ReflectionTestUtils.invokeMethod(lookup, "init");
+        filter = new JwtAuthenticationFilter(jwtUtils, lookup, new AuthAuditService(null, new SimpleMeterRegistry()),
+                mock(OpaqueTokenStore.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private MockHttpServletRequest filter(String bearer) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/auth/v1/rest/validate");
+        request.addHeader("Authorization", "Bearer " + bearer);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return request;
+    }
+
+    @Test
+    void validJwt_ShouldAuthenticateAndExposeVerifiedClaims() throws Exception {
+        MockHttpServletRequest request = filter(token);
+
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNotNull();
+        Claims claims = (Claims) request.getAttribute(JwtAuthenticationFilter.CLAIMS_ATTRIBUTE);
+        assertThat(claims.getSubject()).isEqualTo("alice");
+        assertThat(claims.getExpiration()).isNotNull();
+    }
+
+    @Test
+    void disabledUser_ShouldNotBeAuthenticated() throws Exception {
+        storedUser = User.withUserDetails(storedUser).disabled(true).build();
+
+        MockHttpServletRequest request = filter(token);
+
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+        assertThat(request.getAttribute(JwtAuthenticationFilter.CLAIMS_ATTRIBUTE)).isNull();
+    }
+
+    @Test
+    void disabledUser_ShouldBeRejectedAlikeWithDatabaseUpOrDown() throws Exception {
+        filter(token);
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNotNull();
+        SecurityContextHolder.clearContext();
+        storedUser = User.withUserDetails(storedUser).disabled(true).build();
+        lookup.onChange(new ChangeLogEntry(1L, ChangeType.USER_DISABLED, "alice", Instant.now()));
+
+        filter(token);
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+
+        databaseDown = true;
+        filter(token);
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+    }
+
+    @Test
+    void lockedUser_ShouldNotBeAuthenticated() throws Exception {
+        storedUser = User.withUserDetails(storedUser).accountLocked(true).build();
+
+        filter(token);
+
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+    }
+}
@@ -1,16 +1,23 @@
 package com.app.authjwt;
 
 import com.app.authjwt.security.JwtUtils;
+import com.app.authjwt.security.RoleCodec;
+import com.app.authjwt.security.TokenProfile;
+import io.jsonwebtoken.Claims;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -59,4 +66,64 @@ public class JwtUtilsTest {
 
         assertThat(isValid).isFalse();
     }
+
+    private static final RoleCodec ROLE_CODES = new RoleCodec() {
+        private final Map<String, Long> codes = Map.of("ROLE_USER", 1L, "ROLE_MODERATOR", 2L, "ROLE_ADMIN", 3L);
+
+        @Override
+        public Long codeOf(String roleName) {
+            return codes.get(roleName);
+        }
+
+        @Override
+        public String nameOf(long code) {
+            return codes.entrySet().stream()
+                    .filter(entry -> entry.getValue() == code)
+                    .map(Map.Entry::getKey)
+                    .findFirst().orElse(null);
+        }
+    };
+
+    private UserDetails userWithRoles() {
+        return new User("testuser", "password", List.of(
+                new SimpleGrantedAuthority("ROLE_USER"),
+                new SimpleGrantedAuthority("ROLE_MODERATOR"),
+                new SimpleGrantedAuthority("ROLE_ADMIN")));
+    }
+
+    @Test
+    void compactProfile_ShouldEncodeRolesAsCodesAndProduceShorterToken() {
+        UserDetails user = userWithRoles();
+        String standard = jwtUtils.generateToken(user);
+        ReflectionTestUtils.setField(jwtUtils, "tokenProfile", TokenProfile.COMPACT);
+        ReflectionTestUtils.setField(jwtUtils, "roleCodec", ROLE_CODES);
+
+        String compact = jwtUtils.generateToken(user);
+
+        Claims claims = jwtUtils.extractAllClaims(compact);
+        assertThat(claims.get(JwtUtils.ROLES_CLAIM)).isNull();
+        // User de Spring Security ordena sus authorities: el orden de los roles en el token no es significativo
+        List<?> codes = claims.get(JwtUtils.COMPACT_ROLES_CLAIM, List.class);
+        assertThat(codes.toArray()).containsExactlyInAnyOrder(1, 2, 3);
+        assertThat(jwtUtils.extractRoles(claims)).containsExactlyInAnyOrder("ROLE_USER", "ROLE_MODERATOR", "ROLE_ADMIN");
+        assertThat(compact.length()).isLessThan(standard.length());
+        // Los tokens emitidos con el perfil anterior siguen siendo válidos
+        assertThat(jwtUtils.extractRoles(jwtUtils.extractAllClaims(standard)))
+                .containsExactlyInAnyOrder("ROLE_USER", "ROLE_MODERATOR", "ROLE_ADMIN");
+    }
+
+    @Test
+    void claimAllowList_ShouldOmitIssuedAtAndUnlistedExtraClaims() {
+        ReflectionTestUtils.setField(jwtUtils, "allowedClaims", Set.of("aud", JwtUtils.ROLES_CLAIM, "tenant"));
+
+        Claims plain = jwtUtils.extractAllClaims(jwtUtils.generateToken(userDetails));
+        Claims extra = jwtUtils.extractAllClaims(
+                jwtUtils.generateToken(Map.of("tenant", "acme", "internalId", 42), userDetails));
+
+        assertThat(plain.getIssuedAt()).isNull();
+        assertThat(plain.getExpiration()).isNotNull();
+        assertThat(extra.get("tenant")).isEqualTo("acme");
+        assertThat(extra.get("internalId")).isNull();
+        assertThat(extra.getIssuedAt()).isNull();
+    }
 }
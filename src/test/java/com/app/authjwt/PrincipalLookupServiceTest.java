@@ -0,0 +1,192 @@
+package com.app.authjwt;
+
+import com.app.authjwt.changelog.ChangeLogEntry;
+import com.app.authjwt.changelog.ChangeType;
+import com.app.authjwt.resilience.CircuitState;
+import com.app.authjwt.security.JwtUtils;
+import com.app.authjwt.security.PrincipalLookupService;
+import com.app.authjwt.security.RoleAuthorities;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PrincipalLookupServiceTest {
+
+    private static final String SECRET = "b5f3860a89d08d3db83258a0509186d527b38ad627852a79";
+
+    private final AtomicBoolean databaseDown = new AtomicBoolean();
+    private final AtomicInteger lookups = new AtomicInteger();
+    private volatile CountDownLatch gate;
+    private final UserDetails user = new User("alice", "hash", List.of(new SimpleGrantedAuthority("ROLE_ADMIN")));
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private JwtUtils jwtUtils;
+    private PrincipalLookupService service;
+    private Claims claims;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 3_600_000L);
+        claims = jwtUtils.extractAllClaims(jwtUtils.generateToken(
+                new User("bob", "hash", List.of(new SimpleGrantedAuthority("ROLE_USER")))));
+
+        service = new PrincipalLookupService(username -> {
+            lookups.incrementAndGet();
+            awaitGate();
+            if (databaseDown.get()) {
+                throw new QueryTimeoutException("timeout");
+            }
+            return user;
+        }, jwtUtils, meterRegistry);
+        ReflectionTestUtils.setField(service, "failureThreshold", 2);
+        ReflectionTestUtils.setField(service, "openDurationMs", 60_000L);
+        ReflectionTestUtils.setField(service, "halfOpenProbes", 1);
+        ReflectionTestUtils.setField(service, "graceMs", 300_000L);
+        ReflectionTestUtils.setField(service, "claimsFallback", true);
+        ReflectionTestUtils.setField(service, "snapshotRefreshMs", 30_000L);
+        ReflectionTestUtils.setField(service, "maxSnapshots", 100);
+        ReflectionTestUtils.setField(service, "coalesceTimeoutMs", 2_000L);
+        ReflectionTestUtils.invokeMethod(service, "init");
+    }
+
+    private void awaitGate() {
+        CountDownLatch current = gate;
+        if (current != null) {
+            try {
+                current.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Test
+    void openCircuit_ShouldFailFastAndServeLastKnownGoodSnapshot() {
+        service.loadUser("alice", claims);
+        databaseDown.set(true);
+
+        service.loadUser("alice", claims);
+        service.loadUser("alice", claims);
+        int lookupsWhenOpened = lookups.get();
+        UserDetails degraded = service.loadUser("alice", claims);
+
+        assertThat(service.getState()).isEqualTo(CircuitState.OPEN);
+        assertThat(lookups.get()).isEqualTo(lookupsWhenOpened);
+        assertThat(degraded.getUsername()).isEqualTo("alice");
+        assertThat(degraded.getPassword()).isEmpty();
+        assertThat(degraded.getAuthorities()).extracting("authority").containsExactly("ROLE_ADMIN");
+    }
+
+    @Test
+    void withoutSnapshot_ShouldFallBackToTokenClaims() {
+        databaseDown.set(true);
+
+        UserDetails degraded = service.loadUser("bob", claims);
+
+        assertThat(degraded.getUsername()).isEqualTo("bob");
+        assertThat(degraded.getAuthorities()).extracting("authority").containsExactly("ROLE_USER");
+    }
+
+    @Test
+    void claimsFallback_ShouldUseCanonicalAuthorities() {
+        GrantedAuthority canonical = new SimpleGrantedAuthority("ROLE_USER");
+        ReflectionTestUtils.setField(service, "roleAuthorities", (RoleAuthorities) role -> canonical);
+        databaseDown.set(true);
+
+        UserDetails degraded = service.loadUser("bob", claims);
+
+        assertThat(degraded.getAuthorities().iterator().next()).isSameAs(canonical);
+    }
+
+    @Test
+    void outsideGraceWindow_ShouldReject() {
+        databaseDown.set(true);
+        service.loadUser("bob", claims);
+        service.loadUser("bob", claims);
+        ReflectionTestUtils.setField(service, "graceMs", -1L);
+
+        assertThatThrownBy(() -> service.loadUser("bob", claims)).isInstanceOf(AuthenticationServiceException.class);
+    }
+
+    @Test
+    void disabledUser_ShouldBeServedAsDisabledInDegradedMode() {
+        service.onChange(new ChangeLogEntry(1L, ChangeType.USER_DISABLED, "bob", Instant.now()));
+        databaseDown.set(true);
+
+        // La copia desactivada tiene prioridad sobre los claims, que la darían por activa
+        UserDetails degraded = service.loadUser("bob", claims);
+
+        assertThat(degraded.isEnabled()).isFalse();
+        assertThat(degraded.getAuthorities()).isEmpty();
+    }
+
+    @Test
+    void sharedFailure_ShouldCountOnceAndKeepCircuitClosed() throws Exception {
+        int waiters = 6;
+        databaseDown.set(true);
+        gate = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(waiters + 1);
+        try {
+            List<Future<UserDetails>> results = new ArrayList<>();
+            results.add(executor.submit(() -> service.loadUser("bob", claims)));
+            while (lookups.get() == 0) {
+                Thread.sleep(1);
+            }
+            for (int i = 0; i < waiters; i++) {
+                results.add(executor.submit(() -> service.loadUser("bob", claims)));
+            }
+            while (coalesced() < waiters) {
+                Thread.sleep(1);
+            }
+            gate.countDown();
+
+            for (Future<UserDetails> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS).getUsername()).isEqualTo("bob");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Umbral 2: si cada petición contara el fallo compartido el circuito estaría abierto
+        assertThat(lookups.get()).isEqualTo(1);
+        assertThat(service.getConsecutiveFailures()).isEqualTo(1);
+        assertThat(service.getState()).isEqualTo(CircuitState.CLOSED);
+    }
+
+    private double coalesced() {
+        return meterRegistry.get("auth.lookup.requests").tag("result", "coalesced").functionCounter().count();
+    }
+
+    @Test
+    void lookups_ShouldBeExposedAsExecutedOrCoalesced() {
+        service.loadUser("alice", claims);
+        service.loadUser("alice", claims);
+
+        assertThat(meterRegistry.get("auth.lookup.requests").tag("result", "executed").functionCounter().count()).isEqualTo(2.0);
+        assertThat(meterRegistry.get("auth.lookup.requests").tag("result", "coalesced").functionCounter().count()).isZero();
+    }
+}
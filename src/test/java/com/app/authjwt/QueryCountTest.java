@@ -0,0 +1,99 @@
+package com.app.authjwt;
+
+import com.app.authjwt.dto.payload.request.LoginRequest;
+import com.app.authjwt.dto.payload.request.RegisterRequest;
+import com.app.authjwt.persistence.QueryStats;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Número exacto de sentencias SQL por endpoint. Si uno de estos valores cambia, revisar si se ha
+ * colado una carga N+1 o una consulta redundante antes de actualizar el test.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class QueryCountTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private static int statements(MvcResult result) {
+        QueryStats stats = (QueryStats) result.getRequest().getAttribute(QueryStats.REQUEST_ATTRIBUTE);
+        return stats.getStatements();
+    }
+
+    private MvcResult signup(String username) throws Exception {
+        RegisterRequest request = new RegisterRequest(username, username + "@example.com", "password123");
+        return mockMvc.perform(post("/api/auth/v1/rest/signup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andReturn();
+    }
+
+    private String tokenOf(MvcResult result) throws Exception {
+        return objectMapper.readTree(result.getResponse().getContentAsString()).get("token").asText();
+    }
+
+    @Test
+    void signup_ShouldRunAvailabilityChecksAndTwoInserts() throws Exception {
+        MvcResult result = signup("qc_signup");
+
+        // email libre (controlador), username libre (servicio), INSERT users, INSERT user_roles
+        assertThat(statements(result)).isEqualTo(4);
+    }
+
+    @Test
+    void signup_ShouldStillRejectTakenUsername() throws Exception {
+        signup("qc_taken");
+        RegisterRequest request = new RegisterRequest("QC_Taken", "other@example.com", "password123");
+
+        mockMvc.perform(post("/api/auth/v1/rest/signup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void signin_ShouldLoadUserWithRolesInOneQuery() throws Exception {
+        signup("qc_signin");
+        LoginRequest request = new LoginRequest("qc_signin", "password123");
+
+        MvcResult result = mockMvc.perform(post("/api/auth/v1/rest/signin")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        assertThat(statements(result)).isEqualTo(1);
+    }
+
+    @Test
+    void validate_ShouldOnlyQueryForThePrincipal() throws Exception {
+        String token = tokenOf(signup("qc_validate"));
+
+        MvcResult result = mockMvc.perform(get("/api/auth/v1/rest/validate")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        assertThat(statements(result)).isEqualTo(1);
+    }
+}
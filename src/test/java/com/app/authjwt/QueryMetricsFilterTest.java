@@ -0,0 +1,39 @@
+package com.app.authjwt;
+
+import com.app.authjwt.persistence.QueryMetricsFilter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QueryMetricsFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final QueryMetricsFilter filter = new QueryMetricsFilter(meterRegistry);
+
+    private void request(String method, String pattern) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, "/api/auth/v1/rest/validate");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, pattern);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+    }
+
+    @Test
+    void repeatedRequests_ShouldRecordIntoTheSameMetersPerEndpoint() throws Exception {
+        request("GET", "/api/auth/v1/rest/validate");
+        DistributionSummary statements = meterRegistry.get("auth.db.statements")
+                .tag("method", "GET").tag("uri", "/api/auth/v1/rest/validate").summary();
+
+        request("GET", "/api/auth/v1/rest/validate");
+        request("POST", "/api/auth/v1/rest/signin");
+
+        assertThat(meterRegistry.get("auth.db.statements")
+                .tag("method", "GET").tag("uri", "/api/auth/v1/rest/validate").summary()).isSameAs(statements);
+        assertThat(statements.count()).isEqualTo(2);
+        assertThat(meterRegistry.get("auth.db.time").timers()).hasSize(2);
+    }
+}
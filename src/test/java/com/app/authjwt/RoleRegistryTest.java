@@ -0,0 +1,76 @@
+package com.app.authjwt;
+
+import com.app.authjwt.User.Model.Role;
+import com.app.authjwt.User.Model.User;
+import com.app.authjwt.User.Repository.RoleRepository;
+import com.app.authjwt.User.service.RoleRegistry;
+import com.app.authjwt.changelog.ChangeLogEntry;
+import com.app.authjwt.changelog.ChangeType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RoleRegistryTest {
+
+    @Mock private RoleRepository roleRepository;
+
+    @InjectMocks
+    private RoleRegistry roleRegistry;
+
+    private static Role role(long id, String name) {
+        return Role.builder().id(id).name(name).build();
+    }
+
+    @Test
+    void refresh_ShouldServeSharedRolesByNameAndCodeWithoutFurtherQueries() {
+        Role user = role(1L, "ROLE_USER");
+        when(roleRepository.findAll()).thenReturn(List.of(user, role(3L, "ROLE_ADMIN")));
+
+        roleRegistry.refresh();
+
+        assertThat(roleRegistry.findByName("ROLE_USER")).containsSame(user);
+        assertThat(roleRegistry.codeOf("ROLE_USER")).isEqualTo(1L);
+        assertThat(roleRegistry.nameOf(3L)).isEqualTo("ROLE_ADMIN");
+        assertThat(roleRegistry.findByName("ROLE_MISSING")).isEmpty();
+        assertThat(roleRegistry.toDto(user)).isSameAs(roleRegistry.toDto(user));
+        verify(roleRepository, times(1)).findAll();
+    }
+
+    @Test
+    void authorityOf_ShouldShareOneInstancePerKnownRole() {
+        when(roleRepository.findAll()).thenReturn(List.of(role(1L, "ROLE_USER")));
+        roleRegistry.refresh();
+        User first = User.builder().username("a").roles(Set.of(role(1L, "ROLE_USER"))).build();
+        User second = User.builder().username("b").roles(Set.of(role(1L, "ROLE_USER"))).build();
+
+        first.resolveAuthorities(roleRegistry::authorityOf);
+        second.resolveAuthorities(roleRegistry::authorityOf);
+
+        assertThat(first.getAuthorities().iterator().next())
+                .isSameAs(second.getAuthorities().iterator().next())
+                .isSameAs(roleRegistry.authorityOf("ROLE_USER"));
+        assertThat(roleRegistry.authorityOf("ROLE_NEW")).isNotSameAs(roleRegistry.authorityOf("ROLE_NEW"));
+        assertThat(roleRegistry.authorityOf("ROLE_NEW").getAuthority()).isEqualTo("ROLE_NEW");
+    }
+
+    @Test
+    void onChange_ShouldReloadOnlyForRoleUpdates() {
+        when(roleRepository.findAll()).thenReturn(List.of(role(1L, "ROLE_USER")));
+
+        roleRegistry.onChange(new ChangeLogEntry(1L, ChangeType.USER_DISABLED, "alice", Instant.now()));
+        roleRegistry.onChange(new ChangeLogEntry(2L, ChangeType.ROLE_UPDATED, "ROLE_USER", Instant.now()));
+
+        verify(roleRepository, times(1)).findAll();
+        assertThat(roleRegistry.size()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,162 @@
+package com.app.authjwt;
+
+import com.app.authjwt.resilience.SingleFlight;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.dao.TransientDataAccessResourceException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+
+    private static final int WAITERS = 7;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(WAITERS + 1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    private String blockingLoad(String value) {
+        loads.incrementAndGet();
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return value;
+    }
+
+    // Lanza la carga líder y espera a que todos los demás se hayan unido a ella
+    private <T> List<Future<T>> startConcurrent(SingleFlight<String, String> flight, Callable<T> call)
+            throws InterruptedException {
+        List<Future<T>> futures = new ArrayList<>();
+        futures.add(executor.submit(call));
+        while (flight.getInFlight() == 0) {
+            Thread.sleep(1);
+        }
+        for (int i = 0; i < WAITERS; i++) {
+            futures.add(executor.submit(call));
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (flight.getCoalesced() < WAITERS && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        return futures;
+    }
+
+    @Test
+    void concurrentLoads_ShouldShareOneExecution() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>(5_000);
+        List<Future<String>> futures = startConcurrent(flight, () -> flight.execute("alice", () -> blockingLoad("row")));
+
+        release.countDown();
+
+        for (Future<String> future : futures) {
+            assertThat(future.get(5, TimeUnit.SECONDS)).isEqualTo("row");
+        }
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(flight.getExecuted()).isEqualTo(1);
+        assertThat(flight.getCoalesced()).isEqualTo(WAITERS);
+        assertThat(flight.getInFlight()).isZero();
+    }
+
+    @Test
+    void failedLoad_ShouldPropagateTheSameExceptionToAllWaiters() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>(5_000);
+        TransientDataAccessResourceException failure = new TransientDataAccessResourceException("connection reset");
+        List<Future<Throwable>> futures = startConcurrent(flight, () -> {
+            try {
+                flight.execute("alice", () -> {
+                    blockingLoad("row");
+                    throw failure;
+                });
+                return null;
+            } catch (RuntimeException e) {
+                return e;
+            }
+        });
+
+        release.countDown();
+
+        for (Future<Throwable> future : futures) {
+            assertThat(future.get(5, TimeUnit.SECONDS)).isSameAs(failure);
+        }
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    void waiter_ShouldTimeOut_WhenLoadIsTooSlow() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>(20);
+        Future<String> leader = executor.submit(() -> flight.execute("alice", () -> blockingLoad("row")));
+        while (flight.getInFlight() == 0) {
+            Thread.sleep(1);
+        }
+
+        assertThatThrownBy(() -> flight.execute("alice", () -> "unused")).isInstanceOf(QueryTimeoutException.class);
+
+        release.countDown();
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("row");
+        assertThat(flight.getTimedOut()).isEqualTo(1);
+    }
+
+    @Test
+    void onShared_ShouldRunOnlyInCallersThatDidNotLoad() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>(5_000);
+        AtomicInteger shared = new AtomicInteger();
+        List<Future<String>> futures = startConcurrent(flight,
+                () -> flight.execute("alice", () -> blockingLoad("row"), shared::incrementAndGet));
+
+        release.countDown();
+
+        for (Future<String> future : futures) {
+            future.get(5, TimeUnit.SECONDS);
+        }
+        assertThat(shared.get()).isEqualTo(WAITERS);
+    }
+
+    @Test
+    void onShared_ShouldRunWhenTheWaitTimesOut() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>(20);
+        AtomicInteger shared = new AtomicInteger();
+        Future<String> leader = executor.submit(() -> flight.execute("alice", () -> blockingLoad("row"), shared::incrementAndGet));
+        while (flight.getInFlight() == 0) {
+            Thread.sleep(1);
+        }
+
+        assertThatThrownBy(() -> flight.execute("alice", () -> "unused", shared::incrementAndGet))
+                .isInstanceOf(QueryTimeoutException.class);
+
+        release.countDown();
+        leader.get(5, TimeUnit.SECONDS);
+        assertThat(shared.get()).isEqualTo(1);
+    }
+
+    @Test
+    void completedLoad_ShouldNotBeReused() {
+        SingleFlight<String, String> flight = new SingleFlight<>(5_000);
+
+        flight.execute("alice", () -> String.valueOf(loads.incrementAndGet()));
+        flight.execute("alice", () -> String.valueOf(loads.incrementAndGet()));
+        flight.execute("bob", () -> String.valueOf(loads.incrementAndGet()));
+
+        assertThat(flight.getExecuted()).isEqualTo(3);
+        assertThat(flight.getCoalesced()).isZero();
+    }
+}
@@ -0,0 +1,109 @@
+package com.app.authjwt;
+
+import com.app.authjwt.auth.TokenExchangeService;
+import com.app.authjwt.dto.payload.request.TokenExchangeRequest;
+import com.app.authjwt.dto.payload.response.AuthResponse;
+import com.app.authjwt.security.JwtUtils;
+import com.app.authjwt.token.OpaqueTokenStore;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@ExtendWith(MockitoExtension.class)
+class TokenExchangeServiceTest {
+
+    @Mock private OpaqueTokenStore opaqueTokenStore;
+
+    private JwtUtils jwtUtils;
+    private TokenExchangeService tokenExchangeService;
+    private String userToken;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", "b5f3860a89d08d3db83258a0509186d527b38ad627852a79");
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 3600000L);
+        tokenExchangeService = new TokenExchangeService(jwtUtils, opaqueTokenStore);
+        ReflectionTestUtils.setField(tokenExchangeService, "maxExpirationMs", 300000L);
+
+        UserDetails user = new User("testuser", "password",
+                List.of(new SimpleGrantedAuthority("ROLE_USER"), new SimpleGrantedAuthority("ROLE_ADMIN")));
+        userToken = jwtUtils.generateToken(user);
+    }
+
+    @Test
+    void exchange_ShouldIssueDownscopedShortLivedTokenWithAudience() {
+        TokenExchangeRequest request = new TokenExchangeRequest("report-worker", List.of("ROLE_USER"), 60L);
+
+        AuthResponse response = tokenExchangeService.exchange(userToken, request);
+
+        Claims claims = jwtUtils.extractAllClaims(response.getToken());
+        assertThat(claims.getSubject()).isEqualTo("testuser");
+        assertThat(claims.getAudience()).containsExactly("report-worker");
+        assertThat(jwtUtils.extractRoles(claims)).containsExactly("ROLE_USER");
+        assertThat(claims.getExpiration().getTime() - System.currentTimeMillis()).isLessThanOrEqualTo(60_000L);
+    }
+
+    @Test
+    void exchange_ShouldCapLifetimeAtConfiguredMaximum() {
+        TokenExchangeRequest request = new TokenExchangeRequest("report-worker", null, 86_400L);
+
+        AuthResponse response = tokenExchangeService.exchange(userToken, request);
+
+        Claims claims = jwtUtils.extractAllClaims(response.getToken());
+        assertThat(claims.getExpiration().getTime() - System.currentTimeMillis()).isLessThanOrEqualTo(300_000L);
+        assertThat(jwtUtils.extractRoles(claims)).containsExactlyInAnyOrder("ROLE_USER", "ROLE_ADMIN");
+    }
+
+    @Test
+    void exchange_ShouldRejectAuthoritiesNotInOriginalToken() {
+        TokenExchangeRequest request = new TokenExchangeRequest("report-worker", List.of("ROLE_MODERATOR"), null);
+
+        assertThrows(AccessDeniedException.class, () -> tokenExchangeService.exchange(userToken, request));
+    }
+
+    @Test
+    void exchange_ShouldOnlyAcceptExchangedTokensForTheirOwnAudience() {
+        String exchanged = tokenExchangeService.exchange(userToken,
+                new TokenExchangeRequest("report-worker", List.of("ROLE_USER", "ROLE_ADMIN"), null)).getToken();
+
+        assertThrows(AccessDeniedException.class, () -> tokenExchangeService.exchange(exchanged,
+                new TokenExchangeRequest("billing-worker", null, null)));
+        String narrowed = tokenExchangeService.exchange(exchanged,
+                new TokenExchangeRequest("report-worker", List.of("ROLE_USER"), null)).getToken();
+        assertThat(jwtUtils.extractAllClaims(narrowed).getAudience()).containsExactly("report-worker");
+    }
+
+    @Test
+    void exchange_ShouldRejectInvalidToken() {
+        TokenExchangeRequest request = new TokenExchangeRequest("report-worker", null, null);
+
+        assertThrows(JwtException.class, () -> tokenExchangeService.exchange(userToken + "x", request));
+    }
+
+    @Test
+    void effectiveAuthorities_ShouldRestrictExchangedTokenToItsRoles() {
+        UserDetails user = new User("testuser", "password",
+                List.of(new SimpleGrantedAuthority("ROLE_USER"), new SimpleGrantedAuthority("ROLE_ADMIN")));
+        String exchanged = tokenExchangeService.exchange(userToken,
+                new TokenExchangeRequest("report-worker", List.of("ROLE_USER"), null)).getToken();
+
+        assertThat(jwtUtils.effectiveAuthorities(jwtUtils.extractAllClaims(exchanged), user))
+                .extracting("authority")
+                .containsExactly("ROLE_USER");
+    }
+}
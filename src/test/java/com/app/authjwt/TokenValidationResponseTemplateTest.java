@@ -0,0 +1,42 @@
+package com.app.authjwt;
+
+import com.app.authjwt.dto.payload.response.TokenValidationResponseTemplate;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenValidationResponseTemplateTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void render_ShouldProduceValidJsonWithAllFields() throws Exception {
+        Instant expiresAt = Instant.parse("2030-01-01T10:00:00Z");
+
+        byte[] body = TokenValidationResponseTemplate.render("juan\"perez", expiresAt,
+                List.of(new SimpleGrantedAuthority("ROLE_USER"), new SimpleGrantedAuthority("ROLE_ADMIN")),
+                "abc123");
+
+        JsonNode json = objectMapper.readTree(body);
+        assertThat(json.get("valid").asBoolean()).isTrue();
+        assertThat(json.get("username").asText()).isEqualTo("juan\"perez");
+        assertThat(json.get("message").asText()).isEqualTo("El token es válido y está activo.");
+        assertThat(json.get("expiresAt").asText()).isEqualTo("2030-01-01T10:00:00Z");
+        assertThat(json.get("authorities")).hasSize(2);
+        assertThat(json.get("authorities").get(1).asText()).isEqualTo("ROLE_ADMIN");
+        assertThat(json.get("fingerprint").asText()).isEqualTo("abc123");
+    }
+
+    @Test
+    void render_ShouldHandleNoAuthorities() throws Exception {
+        byte[] body = TokenValidationResponseTemplate.render("user", Instant.EPOCH, List.of(), "fp");
+
+        assertThat(objectMapper.readTree(body).get("authorities")).isEmpty();
+    }
+}
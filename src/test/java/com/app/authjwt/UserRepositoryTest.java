@@ -0,0 +1,101 @@
+package com.app.authjwt;
+
+import com.app.authjwt.User.Model.Role;
+import com.app.authjwt.User.Model.User;
+import com.app.authjwt.User.Repository.RoleRepository;
+import com.app.authjwt.User.Repository.UserRepository;
+import com.app.authjwt.persistence.QueryStats;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+class UserRepositoryTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void findByLoginIdentifier_ShouldResolveUsernameOrEmailIgnoringCase() {
+        userRepository.saveAndFlush(User.builder()
+                .username("Juan.Perez")
+                .email("Juan@Example.com")
+                .password("encoded")
+                .build());
+
+        assertThat(userRepository.findByLoginIdentifier(" JUAN.PEREZ ")).isPresent();
+        assertThat(userRepository.findByLoginIdentifier("juan@example.COM")).isPresent();
+        assertThat(userRepository.findByLoginIdentifier("juan")).isEmpty();
+        assertThat(userRepository.findByLoginIdentifier("")).isEmpty();
+    }
+
+    @Test
+    void save_ShouldMaintainNormalizedColumns() {
+        User saved = userRepository.saveAndFlush(User.builder()
+                .username("MiXeD")
+                .email("MiXeD@Example.com")
+                .password("encoded")
+                .build());
+
+        assertThat(saved.getUsernameNormalized()).isEqualTo("mixed");
+        assertThat(saved.getEmailNormalized()).isEqualTo("mixed@example.com");
+        assertThat(userRepository.existsByUsernameNormalized("mixed")).isTrue();
+    }
+
+    private void saveUserWithRoles(String username) {
+        Role user = roleRepository.saveAndFlush(Role.builder().name("ROLE_QC_USER_" + username).build());
+        Role admin = roleRepository.saveAndFlush(Role.builder().name("ROLE_QC_ADMIN_" + username).build());
+        userRepository.saveAndFlush(User.builder()
+                .username(username)
+                .email(username + "@example.com")
+                .password("encoded")
+                .roles(Set.of(user, admin))
+                .build());
+        entityManager.clear();
+    }
+
+    @Test
+    void findByLoginIdentifier_ShouldFetchRolesInTheSameQuery() {
+        saveUserWithRoles("lookup");
+
+        QueryStats previous = QueryStats.start();
+        User found = userRepository.findByLoginIdentifier("lookup").orElseThrow();
+        int authorities = found.getAuthorities().size();
+        QueryStats stats = QueryStats.restore(previous);
+
+        assertThat(authorities).isEqualTo(2);
+        assertThat(stats.getStatements()).isEqualTo(1);
+        // La lista se resuelve una vez por entidad a partir de sus roles
+        assertThat(found.getAuthorities()).isSameAs(found.getAuthorities());
+    }
+
+    @Test
+    void findById_ShouldLeaveRolesUnloadedUntilAccessed() {
+        saveUserWithRoles("lazy");
+        Long id = userRepository.findByUsernameNormalized("lazy").orElseThrow().getId();
+        entityManager.clear();
+
+        QueryStats previous = QueryStats.start();
+        User found = userRepository.findById(id).orElseThrow();
+        int afterLoad = QueryStats.current().getStatements();
+        int roles = found.getRoles().size();
+        QueryStats stats = QueryStats.restore(previous);
+
+        assertThat(afterLoad).isEqualTo(1);
+        assertThat(roles).isEqualTo(2);
+        assertThat(stats.getStatements()).isEqualTo(2);
+    }
+}
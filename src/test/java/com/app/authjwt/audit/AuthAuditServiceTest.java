@@ -0,0 +1,73 @@
+package com.app.authjwt.audit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+class AuthAuditServiceTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private AuthAuditService service;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        service = new AuthAuditService(jdbcTemplate, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "enabled", true);
+        ReflectionTestUtils.setField(service, "capacity", 64);
+        ReflectionTestUtils.setField(service, "batchSize", 16);
+        ReflectionTestUtils.setField(service, "flushIntervalMs", 50L);
+        ReflectionTestUtils.setField(service, "backpressure", AuditBackpressurePolicy.DROP);
+        ReflectionTestUtils.setField(service, "shutdownTimeoutMs", 1_000L);
+        service.init();
+        service.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.stop();
+    }
+
+    private Thread writer() {
+        return (Thread) ReflectionTestUtils.getField(service, "writer");
+    }
+
+    private static void awaitState(Thread thread, Thread.State state) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (thread.getState() != state && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+    }
+
+    @Test
+    void idleWriter_ShouldParkWithoutDeadline() throws InterruptedException {
+        awaitState(writer(), Thread.State.WAITING);
+
+        // Sin eventos no hay temporizador: el hilo no se despierta hasta que llega uno
+        assertThat(writer().getState()).isEqualTo(Thread.State.WAITING);
+    }
+
+    @Test
+    void record_ShouldWakeIdleWriterAndFlushByDeadline() throws InterruptedException {
+        awaitState(writer(), Thread.State.WAITING);
+
+        service.record(AuthAuditEventType.SIGNIN_SUCCESS, "alice", "10.0.0.7", null);
+
+        verify(jdbcTemplate, timeout(2_000)).batchUpdate(anyString(), any(), anyInt(), any());
+        awaitState(writer(), Thread.State.WAITING);
+        assertThat(writer().getState()).isEqualTo(Thread.State.WAITING);
+    }
+}
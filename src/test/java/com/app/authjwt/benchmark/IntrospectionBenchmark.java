@@ -0,0 +1,90 @@
+package com.app.authjwt.benchmark;
+
+import com.app.authjwt.introspection.IntrospectionResult;
+import com.app.authjwt.introspection.UdsIntrospectionClient;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara {@code GET /validate} por HTTP con el socket de introspección contra una instancia local levantada con
+ * {@code auth.introspection.uds.enabled=true}. El token se pasa con {@code -Dbenchmark.token=...}.
+ *
+ * <pre>mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.app.authjwt.benchmark.IntrospectionBenchmark -Dbenchmark.token=eyJ...</pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IntrospectionBenchmark {
+
+    private static final int PIPELINE_DEPTH = 32;
+
+    @Param("/tmp/jwt-auth.sock")
+    public String socketPath;
+
+    @Param("http://localhost:9001")
+    public String baseUrl;
+
+    private String token;
+    private UdsIntrospectionClient udsClient;
+    private List<String> pipelinedTokens;
+    private HttpClient httpClient;
+    private HttpRequest validateRequest;
+
+    @Setup
+    public void setUp() throws IOException {
+        token = System.getProperty("benchmark.token");
+        if (token == null || token.isBlank()) {
+            throw new IllegalStateException("Set -Dbenchmark.token to a valid access token");
+        }
+        udsClient = new UdsIntrospectionClient(Path.of(socketPath));
+        pipelinedTokens = Collections.nCopies(PIPELINE_DEPTH, token);
+        httpClient = HttpClient.newHttpClient();
+        validateRequest = HttpRequest.newBuilder(URI.create(baseUrl + "/api/auth/v1/rest/validate"))
+                .header("Authorization", "Bearer " + token)
+                .GET()
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        udsClient.close();
+    }
+
+    @Benchmark
+    public int httpValidate() throws IOException, InterruptedException {
+        return httpClient.send(validateRequest, HttpResponse.BodyHandlers.ofByteArray()).statusCode();
+    }
+
+    @Benchmark
+    public IntrospectionResult udsValidate() throws IOException {
+        return udsClient.validate(token);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PIPELINE_DEPTH)
+    public List<IntrospectionResult> udsValidatePipelined() throws IOException {
+        return udsClient.validateAll(pipelinedTokens);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(IntrospectionBenchmark.class.getSimpleName())
+                .jvmArgsAppend("-Dbenchmark.token=" + System.getProperty("benchmark.token", ""))
+                .build()).run();
+    }
+}
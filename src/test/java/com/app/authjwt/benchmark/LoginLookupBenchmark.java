@@ -0,0 +1,114 @@
+package com.app.authjwt.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Búsqueda de login sobre una tabla {@code users} grande (H2 en memoria): columna normalizada con índice único
+ * frente a {@code LOWER(username) = ?}, que obliga a recorrer la tabla.
+ *
+ * <pre>mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.app.authjwt.benchmark.LoginLookupBenchmark</pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoginLookupBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int users;
+
+    private Connection connection;
+    private PreparedStatement byNormalizedUsername;
+    private PreparedStatement byNormalizedEmail;
+    private PreparedStatement byLowerUsername;
+
+    @Setup
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:login-lookup-" + users + ";DB_CLOSE_DELAY=-1", "sa", "");
+        try (Statement ddl = connection.createStatement()) {
+            ddl.execute("CREATE TABLE IF NOT EXISTS users (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                    + "username VARCHAR(20) NOT NULL UNIQUE, email VARCHAR(50) NOT NULL UNIQUE, "
+                    + "password VARCHAR(120) NOT NULL, enabled BOOLEAN NOT NULL, "
+                    + "username_normalized VARCHAR(20) UNIQUE, email_normalized VARCHAR(50) UNIQUE)");
+        }
+        connection.setAutoCommit(false);
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO users (username, email, password, enabled, username_normalized, email_normalized) VALUES (?, ?, ?, TRUE, ?, ?)")) {
+            for (int i = 0; i < users; i++) {
+                String username = "User" + i;
+                String email = "User" + i + "@Example.com";
+                insert.setString(1, username);
+                insert.setString(2, email);
+                insert.setString(3, "$2a$10$abcdefghijklmnopqrstuuN1s3W0b4aG8f5jv7xHc3Vh1m6X4kq2");
+                insert.setString(4, username.toLowerCase(Locale.ROOT));
+                insert.setString(5, email.toLowerCase(Locale.ROOT));
+                insert.addBatch();
+                if (i % 10_000 == 0) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+        connection.commit();
+        connection.setAutoCommit(true);
+
+        byNormalizedUsername = connection.prepareStatement("SELECT id FROM users WHERE username_normalized = ?");
+        byNormalizedEmail = connection.prepareStatement("SELECT id FROM users WHERE email_normalized = ?");
+        byLowerUsername = connection.prepareStatement("SELECT id FROM users WHERE LOWER(username) = ?");
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE users");
+        }
+        connection.close();
+    }
+
+    @Benchmark
+    public long normalizedUsernameIndex() throws SQLException {
+        return lookup(byNormalizedUsername, "user" + randomUser());
+    }
+
+    @Benchmark
+    public long normalizedEmailIndex() throws SQLException {
+        return lookup(byNormalizedEmail, "user" + randomUser() + "@example.com");
+    }
+
+    @Benchmark
+    public long lowerFunctionScan() throws SQLException {
+        return lookup(byLowerUsername, "user" + randomUser());
+    }
+
+    private int randomUser() {
+        return ThreadLocalRandom.current().nextInt(users);
+    }
+
+    private static long lookup(PreparedStatement statement, String value) throws SQLException {
+        statement.setString(1, value);
+        try (ResultSet resultSet = statement.executeQuery()) {
+            return resultSet.next() ? resultSet.getLong(1) : -1;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(LoginLookupBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
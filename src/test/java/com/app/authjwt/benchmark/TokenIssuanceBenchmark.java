@@ -0,0 +1,80 @@
+package com.app.authjwt.benchmark;
+
+import com.app.authjwt.security.Hs256TokenIssuer;
+import com.app.authjwt.security.JwtUtils;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.SecretKey;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara la emisión genérica con jjwt (tal como la hacía {@code JwtUtils}) contra el emisor HS256 especializado.
+ *
+ * <pre>mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.app.authjwt.benchmark.TokenIssuanceBenchmark</pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenIssuanceBenchmark {
+
+    private static final String SECRET = "b5f3860a89d08d3db83258a0509186d527b38ad627852a79";
+    private static final long EXPIRATION_MS = 3_600_000L;
+
+    private UserDetails userDetails;
+    private Hs256TokenIssuer issuer;
+    private JwtUtils jwtUtils;
+
+    @Setup
+    public void setUp() {
+        userDetails = new User("benchmark-user", "password", new ArrayList<>());
+        SecretKey key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET));
+        issuer = new Hs256TokenIssuer(key.getEncoded());
+        jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", EXPIRATION_MS);
+    }
+
+    @Benchmark
+    public String genericJjwtBuilder() {
+        SecretKey key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET));
+        return Jwts.builder()
+                .claims(new HashMap<>())
+                .subject(userDetails.getUsername())
+                .issuedAt(new Date(System.currentTimeMillis()))
+                .expiration(new Date(System.currentTimeMillis() + EXPIRATION_MS))
+                .signWith(key, Jwts.SIG.HS256)
+                .compact();
+    }
+
+    @Benchmark
+    public String specializedIssuer() {
+        long now = System.currentTimeMillis();
+        return issuer.issue(userDetails.getUsername(), now, now + EXPIRATION_MS);
+    }
+
+    @Benchmark
+    public String jwtUtilsGenerateToken() {
+        return jwtUtils.generateToken(userDetails);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TokenIssuanceBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
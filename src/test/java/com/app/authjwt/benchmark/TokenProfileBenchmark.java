@@ -0,0 +1,107 @@
+package com.app.authjwt.benchmark;
+
+import com.app.authjwt.security.JwtUtils;
+import com.app.authjwt.security.RoleCodec;
+import com.app.authjwt.security.TokenProfile;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tamaño y coste de parseo del token según el perfil, para un usuario con cuatro roles.
+ * {@code main} imprime primero la longitud del token de cada variante (lo que viaja en cada
+ * cabecera {@code Authorization}) y después lanza JMH.
+ *
+ * <pre>mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.app.authjwt.benchmark.TokenProfileBenchmark</pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenProfileBenchmark {
+
+    private static final String SECRET = "b5f3860a89d08d3db83258a0509186d527b38ad627852a79";
+    private static final List<String> ROLES = List.of("ROLE_USER", "ROLE_MODERATOR", "ROLE_ADMIN", "ROLE_BILLING");
+
+    /**
+     * STANDARD: formato actual. COMPACT: roles por código. COMPACT_NO_IAT: además sin {@code iat}.
+     */
+    @Param({"STANDARD", "COMPACT", "COMPACT_NO_IAT"})
+    public String variant;
+
+    private UserDetails user;
+    private JwtUtils jwtUtils;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        user = typicalUser();
+        jwtUtils = newJwtUtils(variant);
+        token = jwtUtils.generateToken(user);
+    }
+
+    @Benchmark
+    public String issue() {
+        return jwtUtils.generateToken(user);
+    }
+
+    @Benchmark
+    public Set<String> parse() {
+        return jwtUtils.extractRoles(jwtUtils.extractAllClaims(token));
+    }
+
+    static UserDetails typicalUser() {
+        return new User("maria.gonzalez", "password",
+                ROLES.stream().map(SimpleGrantedAuthority::new).toList());
+    }
+
+    static JwtUtils newJwtUtils(String variant) {
+        JwtUtils jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 3_600_000L);
+        if (!variant.equals("STANDARD")) {
+            ReflectionTestUtils.setField(jwtUtils, "tokenProfile", TokenProfile.COMPACT);
+            ReflectionTestUtils.setField(jwtUtils, "roleCodec", new IndexRoleCodec());
+        }
+        if (variant.equals("COMPACT_NO_IAT")) {
+            ReflectionTestUtils.setField(jwtUtils, "allowedClaims", Set.of("aud", JwtUtils.ROLES_CLAIM));
+        }
+        return jwtUtils;
+    }
+
+    // Códigos 1..n en el orden de ROLES, como los ids que asigna la tabla roles
+    private static final class IndexRoleCodec implements RoleCodec {
+        @Override
+        public Long codeOf(String roleName) {
+            int index = ROLES.indexOf(roleName);
+            return index < 0 ? null : (long) index + 1;
+        }
+
+        @Override
+        public String nameOf(long code) {
+            return code >= 1 && code <= ROLES.size() ? ROLES.get((int) code - 1) : null;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        UserDetails user = typicalUser();
+        for (String variant : List.of("STANDARD", "COMPACT", "COMPACT_NO_IAT")) {
+            String token = newJwtUtils(variant).generateToken(user);
+            System.out.printf("%-15s %4d chars%n", variant, token.length());
+        }
+        new Runner(new OptionsBuilder()
+                .include(TokenProfileBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
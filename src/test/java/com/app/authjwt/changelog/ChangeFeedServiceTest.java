@@ -0,0 +1,163 @@
+package com.app.authjwt.changelog;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ChangeFeedServiceTest {
+
+    private ChangeLogRepository repository;
+    private ChangeLogPoller poller;
+    private SimpleMeterRegistry meterRegistry;
+    private ChangeFeedService feed;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        repository = mock(ChangeLogRepository.class);
+        poller = mock(ChangeLogPoller.class);
+        ObjectProvider<ChangeLogPoller> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(poller);
+        meterRegistry = new SimpleMeterRegistry();
+        feed = new ChangeFeedService(repository, provider, meterRegistry);
+        ReflectionTestUtils.setField(feed, "replayBufferSize", 3);
+        ReflectionTestUtils.setField(feed, "maxReplay", 100);
+        ReflectionTestUtils.setField(feed, "maxPending", 2);
+        ReflectionTestUtils.setField(feed, "maxSubscribers", 10);
+        ReflectionTestUtils.setField(feed, "senderThreads", 1);
+        ReflectionTestUtils.invokeMethod(feed, "init");
+        // Envíos en el hilo del test para poder comprobarlos sin esperas
+        ReflectionTestUtils.setField(feed, "sender", (Executor) Runnable::run);
+    }
+
+    private static ChangeLogEntry entry(long id, ChangeType type, String key) {
+        return new ChangeLogEntry(id, type, key, Instant.ofEpochMilli(1_000 + id));
+    }
+
+    @Test
+    void liveEvent_ShouldCarrySequenceTypeAndKey() {
+        when(poller.getHighWaterMark()).thenReturn(10L);
+        RecordingEmitter emitter = new RecordingEmitter();
+        feed.register(emitter, null);
+
+        feed.onChange(entry(11, ChangeType.USER_DISABLED, "alice"));
+
+        assertThat(emitter.text()).contains("id:11\nevent:user-disabled\ndata:{\"key\":\"alice\",\"at\":1011}\n\n");
+        assertThat(feed.getSubscriberCount()).isEqualTo(1);
+    }
+
+    @Test
+    void resume_ShouldReplayOnlyEventsAfterLastEventIdFromMemory() {
+        when(poller.getHighWaterMark()).thenReturn(10L);
+        feed.onChange(entry(11, ChangeType.USER_DISABLED, "alice"));
+        feed.onChange(entry(12, ChangeType.ROLES_CHANGED, "bob"));
+        feed.onChange(entry(13, ChangeType.TOKEN_REVOKED, "fp"));
+        RecordingEmitter emitter = new RecordingEmitter();
+
+        feed.register(emitter, 11L);
+
+        assertThat(emitter.text()).doesNotContain("id:11\n").contains("id:12\n", "id:13\nevent:token-revoked");
+        verify(repository, never()).findByIdGreaterThanOrderByIdAsc(any(), any());
+    }
+
+    @Test
+    void resume_ShouldReadOlderEventsFromDatabaseBeforeBufferedOnes() {
+        when(poller.getHighWaterMark()).thenReturn(10L);
+        // El buffer (capacidad 3) solo conserva 13..15
+        for (long id = 11; id <= 15; id++) {
+            feed.onChange(entry(id, ChangeType.ROLES_CHANGED, "u" + id));
+        }
+        when(repository.findMinId()).thenReturn(1L);
+        when(repository.findByIdGreaterThanOrderByIdAsc(eq(10L), any(Pageable.class))).thenReturn(List.of(
+                entry(11, ChangeType.ROLES_CHANGED, "u11"),
+                entry(12, ChangeType.ROLES_CHANGED, "u12"),
+                entry(13, ChangeType.ROLES_CHANGED, "u13")));
+        RecordingEmitter emitter = new RecordingEmitter();
+
+        feed.register(emitter, 10L);
+
+        String text = emitter.text();
+        assertThat(text).containsSubsequence("id:11\n", "id:12\n", "id:13\n", "id:14\n", "id:15\n");
+        assertThat(text.split("id:13\n", -1)).hasSize(2);
+    }
+
+    @Test
+    void resume_ShouldSendReset_WhenEventsWerePruned() {
+        when(poller.getHighWaterMark()).thenReturn(50L);
+        when(repository.findMinId()).thenReturn(40L);
+        RecordingEmitter emitter = new RecordingEmitter();
+
+        feed.register(emitter, 20L);
+
+        assertThat(emitter.text()).contains("id:50\nevent:" + ChangeFeedService.RESET_EVENT);
+        verify(repository, never()).findByIdGreaterThanOrderByIdAsc(any(), any());
+    }
+
+    @Test
+    void stalledSubscriber_ShouldBeDroppedOnceMaxPendingIsReached() {
+        when(poller.getHighWaterMark()).thenReturn(0L);
+        // Los envíos quedan retenidos, como con un cliente que no lee
+        List<Runnable> parked = new ArrayList<>();
+        ReflectionTestUtils.setField(feed, "sender", (Executor) parked::add);
+        RecordingEmitter emitter = new RecordingEmitter();
+        feed.register(emitter, null);
+
+        feed.onChange(entry(1, ChangeType.USER_DISABLED, "alice"));
+        feed.onChange(entry(2, ChangeType.USER_DISABLED, "bob"));
+
+        assertThat(feed.getSubscriberCount()).isZero();
+        assertThat(meterRegistry.counter("auth.feed.subscribers.dropped").count()).isEqualTo(1.0);
+        assertThat(emitter.text()).isEmpty();
+    }
+
+    @Test
+    void failedSend_ShouldRemoveSubscriber() {
+        when(poller.getHighWaterMark()).thenReturn(0L);
+        RecordingEmitter emitter = new RecordingEmitter();
+        feed.register(emitter, null);
+        emitter.failing = true;
+
+        feed.heartbeat();
+
+        assertThat(feed.getSubscriberCount()).isZero();
+    }
+
+    private static final class RecordingEmitter extends SseEmitter {
+
+        private final StringBuilder sent = new StringBuilder();
+        private boolean failing;
+
+        @Override
+        public void send(Set<DataWithMediaType> items) throws IOException {
+            if (failing) {
+                throw new IOException("Broken pipe");
+            }
+            for (DataWithMediaType item : items) {
+                sent.append(item.getData());
+            }
+        }
+
+        String text() {
+            return sent.toString();
+        }
+    }
+}
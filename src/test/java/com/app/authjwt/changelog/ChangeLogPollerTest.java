@@ -0,0 +1,111 @@
+package com.app.authjwt.changelog;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ChangeLogPollerTest {
+
+    private ChangeLogRepository repository;
+    private SimpleMeterRegistry meterRegistry;
+    private final List<ChangeLogEntry> received = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(ChangeLogRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    private ChangeLogPoller newPoller(CacheInvalidationListener... extraListeners) {
+        List<CacheInvalidationListener> listeners = new ArrayList<>(List.of(extraListeners));
+        listeners.add(received::add);
+        ChangeLogPoller poller = new ChangeLogPoller(repository, listeners, meterRegistry);
+        ReflectionTestUtils.setField(poller, "batchSize", 2);
+        ReflectionTestUtils.setField(poller, "gapTimeoutMs", 30_000L);
+        ReflectionTestUtils.setField(poller, "maxTrackedGaps", 100);
+        poller.init();
+        return poller;
+    }
+
+    private static ChangeLogEntry entry(long id, String username) {
+        return new ChangeLogEntry(id, ChangeType.USER_DISABLED, username, Instant.now());
+    }
+
+    @Test
+    void firstPoll_ShouldStartFromCurrentMaxIdWithoutReplayingHistory() {
+        when(repository.findMaxId()).thenReturn(42L);
+        ChangeLogPoller poller = newPoller();
+
+        poller.poll();
+
+        assertThat(poller.getHighWaterMark()).isEqualTo(42L);
+        assertThat(received).isEmpty();
+        verify(repository, never()).findByIdGreaterThanOrderByIdAsc(any(), any());
+    }
+
+    @Test
+    void poll_ShouldApplyEntriesInOrderAcrossPagesAndAdvanceHighWaterMark() {
+        when(repository.findMaxId()).thenReturn(0L);
+        when(repository.findByIdGreaterThanOrderByIdAsc(eq(0L), any(Pageable.class)))
+                .thenReturn(List.of(entry(1, "alice"), entry(2, "bob")));
+        when(repository.findByIdGreaterThanOrderByIdAsc(eq(2L), any(Pageable.class)))
+                .thenReturn(List.of(entry(3, "carol")));
+        ChangeLogPoller poller = newPoller();
+        poller.poll();
+
+        poller.poll();
+
+        assertThat(received).extracting(ChangeLogEntry::getEntityKey).containsExactly("alice", "bob", "carol");
+        assertThat(poller.getHighWaterMark()).isEqualTo(3L);
+        assertThat(meterRegistry.get("auth.changelog.invalidation.lag").timer().count()).isEqualTo(3);
+        assertThat(meterRegistry.get("auth.changelog.high.water.mark").gauge().value()).isEqualTo(3.0);
+    }
+
+    @Test
+    void poll_ShouldPickUpEntryCommittedLateBelowHighWaterMark() {
+        when(repository.findMaxId()).thenReturn(0L);
+        when(repository.findByIdGreaterThanOrderByIdAsc(eq(0L), any(Pageable.class)))
+                .thenReturn(List.of(entry(2, "bob")));
+        when(repository.findByIdGreaterThanOrderByIdAsc(eq(2L), any(Pageable.class)))
+                .thenReturn(List.of());
+        when(repository.findAllById(anyIterable())).thenReturn(List.of(entry(1, "alice")));
+        ChangeLogPoller poller = newPoller();
+        poller.poll();
+        poller.poll();
+
+        poller.poll();
+
+        assertThat(received).extracting(ChangeLogEntry::getEntityKey).containsExactly("bob", "alice");
+    }
+
+    @Test
+    void poll_ShouldKeepNotifyingOtherListenersWhenOneFails() {
+        when(repository.findMaxId()).thenReturn(0L);
+        when(repository.findByIdGreaterThanOrderByIdAsc(eq(0L), any(Pageable.class)))
+                .thenReturn(List.of(entry(1, "alice")));
+        ChangeLogPoller poller = newPoller(entry -> {
+            throw new IllegalStateException("boom");
+        });
+        poller.poll();
+
+        poller.poll();
+
+        assertThat(received).extracting(ChangeLogEntry::getEntityKey).containsExactly("alice");
+        assertThat(poller.getHighWaterMark()).isEqualTo(1L);
+    }
+}
@@ -0,0 +1,146 @@
+package com.app.authjwt.introspection;
+
+import com.app.authjwt.security.JwtUtils;
+import com.app.authjwt.token.IssuedOpaqueToken;
+import com.app.authjwt.token.OpaqueTokenStore;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UdsIntrospectionServerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private JwtUtils jwtUtils;
+    private OpaqueTokenStore opaqueTokenStore;
+    private UdsIntrospectionServer server;
+    private Path socketPath;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtils = new JwtUtils() {
+            @Override
+            public Claims extractAllClaims(String token) {
+                if ("boom.boom.boom".equals(token)) {
+                    throw new IllegalStateException("unexpected failure");
+                }
+                return super.extractAllClaims(token);
+            }
+        };
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", "b5f3860a89d08d3db83258a0509186d527b38ad627852a79");
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 3600000L);
+
+        opaqueTokenStore = new OpaqueTokenStore(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(opaqueTokenStore, "shardCount", 1);
+        ReflectionTestUtils.setField(opaqueTokenStore, "maxEntries", 100);
+        ReflectionTestUtils.setField(opaqueTokenStore, "expirationMs", 3600000L);
+        ReflectionTestUtils.setField(opaqueTokenStore, "snapshotPath", "");
+        ReflectionTestUtils.invokeMethod(opaqueTokenStore, "init");
+
+        socketPath = tempDir.resolve("introspection.sock");
+        server = new UdsIntrospectionServer(jwtUtils, opaqueTokenStore, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(server, "socketPath", socketPath.toString());
+        server.init();
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    void validate_ShouldReturnSubjectAndExpiration_WhenTokenIsValid() throws Exception {
+        String token = jwtUtils.generateToken(new User("testuser", "password", new ArrayList<>()));
+
+        try (UdsIntrospectionClient client = new UdsIntrospectionClient(socketPath)) {
+            IntrospectionResult result = client.validate(token);
+
+            assertThat(result.isValid()).isTrue();
+            assertThat(result.getSubject()).isEqualTo("testuser");
+            assertThat(result.getExpiresAtEpochSecond()).isGreaterThan(System.currentTimeMillis() / 1000);
+        }
+    }
+
+    @Test
+    void validate_ShouldResolveOpaqueTokensFromTheStore() throws Exception {
+        IssuedOpaqueToken issued = opaqueTokenStore.issue(new User("testuser", "password", new ArrayList<>()));
+        String revoked = opaqueTokenStore.issue(new User("testuser", "password", new ArrayList<>())).getToken();
+        opaqueTokenStore.revoke(revoked);
+
+        try (UdsIntrospectionClient client = new UdsIntrospectionClient(socketPath)) {
+            IntrospectionResult result = client.validate(issued.getToken());
+
+            assertThat(result.isValid()).isTrue();
+            assertThat(result.getSubject()).isEqualTo("testuser");
+            assertThat(result.getExpiresAtEpochSecond()).isEqualTo(issued.getEntry().getExpiresAt() / 1000);
+            assertThat(client.validate(revoked).getStatus()).isEqualTo(IntrospectionProtocol.STATUS_INVALID);
+        }
+    }
+
+    @Test
+    void validateAll_ShouldAnswerPipelinedRequestsInOrder() throws Exception {
+        String valid = jwtUtils.generateToken(new User("testuser", "password", new ArrayList<>()));
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            tokens.add(i % 2 == 0 ? valid : "not-a-token");
+        }
+
+        try (UdsIntrospectionClient client = new UdsIntrospectionClient(socketPath)) {
+            List<IntrospectionResult> results = client.validateAll(tokens);
+
+            assertThat(results).hasSize(tokens.size());
+            for (int i = 0; i < results.size(); i++) {
+                assertThat(results.get(i).getRequestId()).isEqualTo(i);
+                assertThat(results.get(i).isValid()).isEqualTo(i % 2 == 0);
+            }
+        }
+    }
+
+    @Test
+    void validate_ShouldReportExpired_WhenTokenHasExpired() throws Exception {
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", -60_000L);
+        String expired = jwtUtils.generateToken(new User("testuser", "password", new ArrayList<>()));
+
+        try (UdsIntrospectionClient client = new UdsIntrospectionClient(socketPath)) {
+            assertThat(client.validate(expired).getStatus()).isEqualTo(IntrospectionProtocol.STATUS_EXPIRED);
+        }
+    }
+
+    @Test
+    void unexpectedFailure_ShouldCloseOnlyThatConnection() throws Exception {
+        String token = jwtUtils.generateToken(new User("testuser", "password", new ArrayList<>()));
+
+        try (UdsIntrospectionClient failing = new UdsIntrospectionClient(socketPath)) {
+            assertThatThrownBy(() -> failing.validate("boom.boom.boom")).isInstanceOf(IOException.class);
+        }
+        try (UdsIntrospectionClient client = new UdsIntrospectionClient(socketPath)) {
+            assertThat(client.validate(token).isValid()).isTrue();
+        }
+    }
+
+    @Test
+    void start_ShouldExposeSocketOnlyWithRestrictedPermissions() throws Exception {
+        assertThat(PosixFilePermissions.toString(Files.getPosixFilePermissions(socketPath))).isEqualTo("rw-rw----");
+        try (var entries = Files.list(tempDir)) {
+            // El directorio privado usado para crear el socket no queda en disco
+            assertThat(entries).containsExactly(socketPath);
+        }
+    }
+}
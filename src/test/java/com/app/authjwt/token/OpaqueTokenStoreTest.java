@@ -0,0 +1,142 @@
+package com.app.authjwt.token;
+
+import com.app.authjwt.changelog.ChangeLogEntry;
+import com.app.authjwt.changelog.ChangeType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OpaqueTokenStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    private UserDetails user;
+
+    @BeforeEach
+    void setUp() {
+        user = new User("testuser", "password", List.of(new SimpleGrantedAuthority("ROLE_USER")));
+    }
+
+    private OpaqueTokenStore newStore(int maxEntries, long expirationMs, String snapshotPath) {
+        OpaqueTokenStore store = new OpaqueTokenStore(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(store, "shardCount", 4);
+        ReflectionTestUtils.setField(store, "maxEntries", maxEntries);
+        ReflectionTestUtils.setField(store, "expirationMs", expirationMs);
+        ReflectionTestUtils.setField(store, "snapshotPath", snapshotPath);
+        store.init();
+        return store;
+    }
+
+    @Test
+    void issue_ShouldReturnShortOpaqueTokenThatResolvesToPrincipal() {
+        OpaqueTokenStore store = newStore(1000, 60_000L, "");
+
+        IssuedOpaqueToken issued = store.issue(user);
+
+        assertThat(issued.getToken()).hasSize(43).doesNotContain(".");
+        assertThat(OpaqueTokenStore.isOpaqueToken(issued.getToken())).isTrue();
+        assertThat(issued.getEntry().getTokenHash()).isNotEqualTo(issued.getToken());
+        OpaqueTokenEntry resolved = store.resolve(issued.getToken());
+        assertThat(resolved.getPrincipal().getUsername()).isEqualTo("testuser");
+        assertThat(resolved.getPrincipal().getAuthorities()).extracting("authority").containsExactly("ROLE_USER");
+    }
+
+    @Test
+    void onChange_ShouldRevokeAllTokensOfDisabledUserOnly() {
+        OpaqueTokenStore store = newStore(1000, 60_000L, "");
+        String first = store.issue(user).getToken();
+        String second = store.issue(user).getToken();
+        String other = store.issue(new User("other", "password", List.of())).getToken();
+
+        store.onChange(new ChangeLogEntry(1L, ChangeType.USER_DISABLED, "testuser", Instant.now()));
+
+        assertThat(store.resolve(first)).isNull();
+        assertThat(store.resolve(second)).isNull();
+        assertThat(store.resolve(other)).isNotNull();
+    }
+
+    @Test
+    void revoke_ShouldMakeTokenUnresolvableImmediately() {
+        OpaqueTokenStore store = newStore(1000, 60_000L, "");
+        String token = store.issue(user).getToken();
+
+        assertThat(store.revoke(token)).isTrue();
+
+        assertThat(store.resolve(token)).isNull();
+    }
+
+    @Test
+    void revokedTokens_ShouldNotStayQueuedForExpiry() {
+        OpaqueTokenStore store = newStore(1000, 60_000L, "");
+        for (int i = 0; i < 50; i++) {
+            store.revoke(store.issue(user).getToken());
+        }
+        store.issue(user);
+        store.issue(user);
+
+        store.onChange(new ChangeLogEntry(1L, ChangeType.ROLES_CHANGED, "testuser", Instant.now()));
+
+        assertThat(store.size()).isZero();
+        assertThat(queuedForExpiry(store)).isZero();
+    }
+
+    // Entradas pendientes en las colas de expiración de todos los shards
+    private static int queuedForExpiry(OpaqueTokenStore store) {
+        int queued = 0;
+        for (Object shard : (Object[]) ReflectionTestUtils.getField(store, "shards")) {
+            queued += ((Collection<?>) ReflectionTestUtils.getField(shard, "byExpiry")).size();
+        }
+        return queued;
+    }
+
+    @Test
+    void resolve_ShouldIgnoreExpiredTokensAndEvictionShouldRemoveThem() {
+        OpaqueTokenStore store = newStore(1000, -1L, "");
+        String token = store.issue(user).getToken();
+
+        assertThat(store.resolve(token)).isNull();
+        store.evictExpired();
+        assertThat(store.size()).isZero();
+    }
+
+    @Test
+    void issue_ShouldEvictWhenShardCapacityIsExceeded() {
+        OpaqueTokenStore store = newStore(8, 60_000L, "");
+
+        for (int i = 0; i < 100; i++) {
+            store.issue(user);
+        }
+
+        assertThat(store.size()).isLessThanOrEqualTo(8);
+    }
+
+    @Test
+    void snapshot_ShouldRestoreLiveTokensOnRestartWithoutStoringThem() throws IOException {
+        String snapshot = tempDir.resolve("opaque-tokens.bin").toString();
+        OpaqueTokenStore store = newStore(1000, 60_000L, snapshot);
+        String token = store.issue(user).getToken();
+
+        store.writeSnapshot();
+        assertThat(Files.readString(Path.of(snapshot), StandardCharsets.ISO_8859_1)).doesNotContain(token);
+        OpaqueTokenStore restarted = newStore(1000, 60_000L, snapshot);
+
+        assertThat(restarted.resolve(token)).isNotNull();
+        assertThat(restarted.resolve(token).getPrincipal().getUsername()).isEqualTo("testuser");
+    }
+}